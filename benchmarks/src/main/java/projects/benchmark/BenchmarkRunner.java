@@ -0,0 +1,33 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Entry point of the benchmark jar. With no arguments every benchmark is run with the GC profiler,
+ * so the report shows allocation per operation next to throughput and latency percentiles. With
+ * arguments this behaves exactly like the standard JMH command line.
+ *
+ * @author Promineo
+ *
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws RunnerException, IOException {
+        if (args.length > 0) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        Options options = new OptionsBuilder()
+                .include("projects\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,103 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.EmbeddedDatabase;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full CRUD round trips through {@link ProjectDao} against the embedded database.
+ *
+ * @author Promineo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class DaoRoundTripBenchmark {
+    private static final int SEED_PROJECTS = 1_000;
+    private static final int CHILDREN_PER_PROJECT = 10;
+    private static final int BULK_FETCH_SIZE = 100;
+
+    private ProjectDao projectDao;
+    private List<Integer> projectIds;
+
+    @Setup
+    public void setUp() {
+        EmbeddedDatabase.start();
+        projectDao = new ProjectDao();
+
+        List<Project> projects = new ArrayList<>();
+
+        for (int i = 0; i < SEED_PROJECTS; i++) {
+            projects.add(Fixtures.project("Seed " + i, CHILDREN_PER_PROJECT));
+        }
+
+        projectIds = projectDao.insertProjects(projects).getInserted().stream()
+                .map(Project::getProjectId)
+                .toList();
+    }
+
+    @Benchmark
+    public Project insertProject() {
+        return projectDao.insertProject(Fixtures.project("Inserted", 0));
+    }
+
+    @Benchmark
+    public Optional<Project> fetchProjectById() {
+        return projectDao.fetchProjectById(randomProjectId());
+    }
+
+    @Benchmark
+    public List<Project> fetchProjectsByIds() {
+        int from = ThreadLocalRandom.current().nextInt(projectIds.size() - BULK_FETCH_SIZE);
+        return projectDao.fetchProjectsByIds(projectIds.subList(from, from + BULK_FETCH_SIZE));
+    }
+
+    @Benchmark
+    public boolean modifyProjectDetails() {
+        Project project = Fixtures.project("Modified", 0);
+        project.setProjectId(randomProjectId());
+        return projectDao.modifyProjectDetails(project);
+    }
+
+    /* Only the notes are set, so the UPDATE writes one column. */
+    @Benchmark
+    public boolean modifyProjectNotes() {
+        Project project = new Project();
+        project.setProjectId(randomProjectId());
+        project.setNotes("Modified " + ThreadLocalRandom.current().nextInt());
+        return projectDao.modifyProjectDetails(project);
+    }
+
+    @Benchmark
+    public boolean insertFetchModifyDelete() {
+        Project project = projectDao.insertProject(Fixtures.project("Round trip", 0));
+        projectDao.fetchProjectById(project.getProjectId()).orElseThrow();
+        project.setNotes("Updated");
+        projectDao.modifyProjectDetails(project);
+        return projectDao.deleteProject(project.getProjectId());
+    }
+
+    private Integer randomProjectId() {
+        return projectIds.get(ThreadLocalRandom.current().nextInt(projectIds.size()));
+    }
+}
@@ -0,0 +1,73 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.EmbeddedDatabase;
+import projects.dao.FetchStrategy;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways {@link ProjectDao#fetchProjectById(Integer, FetchStrategy)} can load a project
+ * graph. SEQUENTIAL makes four round trips, GRAPH makes one and PARALLEL makes four at the same time
+ * on separate connections. The child count shows where each strategy pays off: with few children
+ * the round trips dominate, with many children the transfer and mapping of the rows does.
+ *
+ * @author Promineo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FetchStrategyBenchmark {
+    private static final int PROJECTS = 100;
+
+    @Param({ "SEQUENTIAL", "GRAPH", "PARALLEL" })
+    public FetchStrategy strategy;
+
+    @Param({ "5", "100", "2000" })
+    public int childCount;
+
+    private ProjectDao projectDao;
+    private List<Integer> projectIds;
+
+    @Setup
+    public void setUp() {
+        EmbeddedDatabase.start();
+        projectDao = new ProjectDao();
+
+        List<Project> projects = new ArrayList<>();
+
+        for (int i = 0; i < PROJECTS; i++) {
+            projects.add(Fixtures.project("Project " + i, childCount));
+        }
+
+        projectIds = projectDao.insertProjects(projects, 10).getInserted().stream()
+                .map(Project::getProjectId)
+                .toList();
+    }
+
+    @Benchmark
+    public Optional<Project> fetchProjectById() {
+        Integer projectId = projectIds.get(ThreadLocalRandom.current().nextInt(projectIds.size()));
+        return projectDao.fetchProjectById(projectId, strategy);
+    }
+}
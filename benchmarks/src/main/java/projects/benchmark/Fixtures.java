@@ -0,0 +1,53 @@
+package projects.benchmark;
+
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.math.BigDecimal;
+
+/**
+ * Builds the projects used by the benchmarks.
+ *
+ * @author Promineo
+ *
+ */
+public final class Fixtures {
+    private Fixtures() {
+    }
+
+    /**
+     * @param name The project name.
+     * @param childCount The number of materials and the number of steps to attach.
+     * @return A project that has not been inserted. It is linked to the first two seeded categories.
+     */
+    public static Project project(String name, int childCount) {
+        Project project = new Project();
+        project.setProjectName(name);
+        project.setEstimatedHours(new BigDecimal("12.50"));
+        project.setActualHours(new BigDecimal("14.00"));
+        project.setDifficulty(3);
+        project.setNotes("Benchmark project");
+
+        for (int i = 1; i <= childCount; i++) {
+            Material material = new Material();
+            material.setMaterialName("Material " + i);
+            material.setNumRequired(i);
+            material.setCost(new BigDecimal("4.99"));
+            project.getMaterials().add(material);
+
+            Step step = new Step();
+            step.setStepText("Step " + i + " of " + name);
+            project.getSteps().add(step);
+        }
+
+        for (int categoryId = 1; categoryId <= 2; categoryId++) {
+            Category category = new Category();
+            category.setCategoryId(categoryId);
+            project.getCategories().add(category);
+        }
+
+        return project;
+    }
+}
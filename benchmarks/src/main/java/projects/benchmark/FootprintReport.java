@@ -0,0 +1,112 @@
+package projects.benchmark;
+
+import org.openjdk.jol.info.GraphLayout;
+import projects.entity.Category;
+import projects.entity.CompactMaterial;
+import projects.entity.CompactProject;
+import projects.entity.CompactStep;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the retained heap per project of the entity graph and of the compact read model, measured
+ * with JOL by walking every object reachable from the list of projects. The projects are built in
+ * memory with {@link Fixtures}, so no database is needed.
+ *
+ * <p>Run with "java -cp benchmarks/target/benchmarks.jar projects.benchmark.FootprintReport
+ * [projects] [children]".
+ *
+ * @author Promineo
+ *
+ */
+public class FootprintReport {
+    public static void main(String[] args) {
+        int projectCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int childCount = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        List<Project> projects = new ArrayList<>(projectCount);
+        Map<Integer, String> categoryNames = new HashMap<>();
+
+        for (int i = 1; i <= projectCount; i++) {
+            Project project = Fixtures.project("Project " + i, childCount);
+            project.setProjectId(i);
+            project.setVersion(0);
+
+            int childId = (i - 1) * childCount;
+
+            for (Material material : project.getMaterials()) {
+                material.setMaterialId(++childId);
+                material.setProjectId(i);
+            }
+
+            childId = (i - 1) * childCount;
+
+            for (Step step : project.getSteps()) {
+                step.setStepId(++childId);
+                step.setProjectId(i);
+                step.setStepOrder(childId * 1024);
+            }
+
+            /* Every project gets its own Category, but the name is shared, as from the catalog. */
+            for (Category category : project.getCategories()) {
+                category.setCategoryName(categoryNames.computeIfAbsent(category.getCategoryId(),
+                        categoryId -> "Category " + categoryId));
+            }
+
+            projects.add(project);
+        }
+
+        report("Project", projects, projectCount);
+        report("CompactProject", compact(projects), projectCount);
+    }
+
+    private static void report(String model, Object projects, int projectCount) {
+        long bytes = GraphLayout.parseInstance(projects).totalSize();
+        System.out.printf("%-32s %,12d bytes  %,8d bytes/project%n", model, bytes, bytes / projectCount);
+    }
+
+    /*
+     * Converts the way ProjectDao does. The strings are the entity's own, so both models share the
+     * same category names and nothing else.
+     */
+    private static List<CompactProject> compact(List<Project> projects) {
+        List<CompactProject> compact = new ArrayList<>(projects.size());
+
+        for (Project project : projects) {
+            CompactMaterial[] materials = new CompactMaterial[project.getMaterials().size()];
+            CompactStep[] steps = new CompactStep[project.getSteps().size()];
+            int[] categoryIds = new int[project.getCategories().size()];
+            String[] categoryNamesOfProject = new String[categoryIds.length];
+
+            for (int i = 0; i < materials.length; i++) {
+                Material material = project.getMaterials().get(i);
+                materials[i] = new CompactMaterial(material.getMaterialId(), material.getMaterialName(),
+                        material.getNumRequired(), CompactProject.toHundredths(material.getCost()));
+            }
+
+            for (int i = 0; i < steps.length; i++) {
+                Step step = project.getSteps().get(i);
+                steps[i] = new CompactStep(step.getStepId(), step.getStepText(), step.getStepOrder());
+            }
+
+            for (int i = 0; i < categoryIds.length; i++) {
+                Category category = project.getCategories().get(i);
+                categoryIds[i] = category.getCategoryId();
+                categoryNamesOfProject[i] = category.getCategoryName();
+            }
+
+            compact.add(new CompactProject(project.getProjectId(), project.getProjectName(),
+                    CompactProject.toHundredths(project.getEstimatedHours()),
+                    CompactProject.toHundredths(project.getActualHours()), project.getDifficulty(),
+                    project.getNotes(), project.getVersion(), materials, steps, categoryIds, categoryNamesOfProject));
+        }
+
+        return compact;
+    }
+}
@@ -0,0 +1,59 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.EmbeddedDatabase;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures single-project insert latency against tables of increasing size. Insert keys come back
+ * with the insert itself, so the latency should stay flat as the table grows.
+ *
+ * @author Promineo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertScalingBenchmark {
+    @Param({ "0", "10000", "100000" })
+    public int tableRows;
+
+    private ProjectDao projectDao;
+
+    @Setup
+    public void setUp() {
+        EmbeddedDatabase.start();
+        projectDao = new ProjectDao();
+
+        List<Project> projects = new ArrayList<>(tableRows);
+
+        for (int i = 0; i < tableRows; i++) {
+            projects.add(Fixtures.project("Existing " + i, 0));
+        }
+
+        projectDao.insertProjects(projects, 5_000);
+    }
+
+    @Benchmark
+    public Project insertProject() {
+        return projectDao.insertProject(Fixtures.project("Inserted", 0));
+    }
+}
@@ -0,0 +1,86 @@
+package projects.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import projects.dao.DbConnection;
+import projects.dao.EmbeddedDatabase;
+import projects.dao.FetchStrategy;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts how many statements reach the driver's prepareStatement per 10,000 project lookups, with
+ * the pool's statement cache disabled (size 0) and enabled. The sequential fetch strategy is used
+ * because it prepares four statements per lookup.
+ *
+ * @author Promineo
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatementCacheBenchmark {
+    private static final int OPERATIONS = 10_000;
+    private static final int PROJECTS = 100;
+
+    @Param({ "0", "64" })
+    public int statementCacheSize;
+
+    private ProjectDao projectDao;
+    private List<Integer> projectIds;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Prepares {
+        /** Statements prepared by the driver during the 10,000 lookups of the iteration. */
+        public long preparesPer10kOps;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        EmbeddedDatabase.start();
+        System.setProperty("projects.db.statementCacheSize", String.valueOf(statementCacheSize));
+        projectDao = new ProjectDao();
+
+        List<Project> projects = new ArrayList<>();
+
+        for (int i = 0; i < PROJECTS; i++) {
+            projects.add(Fixtures.project("Project " + i, 5));
+        }
+
+        projectIds = projectDao.insertProjects(projects).getInserted().stream()
+                .map(Project::getProjectId)
+                .toList();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void fetchProjectById(Prepares prepares) {
+        long before = DbConnection.getPoolStats().getStatementsPrepared();
+
+        for (int i = 0; i < OPERATIONS; i++) {
+            projectDao.fetchProjectById(projectIds.get(i % PROJECTS), FetchStrategy.SEQUENTIAL);
+        }
+
+        prepares.preparesPer10kOps = DbConnection.getPoolStats().getStatementsPrepared() - before;
+    }
+}
@@ -0,0 +1,115 @@
+package projects.dao;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import projects.benchmark.Fixtures;
+import projects.entity.Material;
+import projects.entity.Project;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-process hot paths of the DAO layer without a database: row mapping, parameter
+ * binding, column name conversion and project formatting. The result set and prepared statement are
+ * synthetic, backed by dynamic proxies that serve one fixed material row, so the numbers include a
+ * small constant proxy cost per JDBC call.
+ *
+ * <p>This lives in the projects.dao package so it can reach the protected and package-private
+ * helpers of {@link DaoBase}.
+ *
+ * @author Promineo
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+    private static final String[] COLUMNS = { "material_id", "project_id", "material_name", "num_required", "cost" };
+    private static final Object[] VALUES = { 7, 3, "2x4 lumber", 12, new BigDecimal("4.99") };
+
+    private final DaoBase dao = new DaoBase() {
+    };
+
+    private ResultSet resultSet;
+    private PreparedStatement statement;
+    private RowMapper<Material> mapper;
+    private Project project;
+
+    @Setup
+    public void setUp() throws SQLException {
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (name, args) -> switch (name) {
+            case "getColumnCount" -> COLUMNS.length;
+            case "getColumnLabel", "getColumnName" -> COLUMNS[(Integer) args[0] - 1];
+            default -> throw new UnsupportedOperationException(name);
+        });
+
+        resultSet = proxy(ResultSet.class, (name, args) -> switch (name) {
+            case "getMetaData" -> metaData;
+            case "getObject" -> VALUES[(Integer) args[0] - 1];
+            default -> throw new UnsupportedOperationException(name);
+        });
+
+        statement = proxy(PreparedStatement.class, (name, args) -> null);
+        mapper = dao.rowMapper(resultSet, Material.class);
+        project = Fixtures.project("Deck", 20);
+    }
+
+    /** One row mapped through extract, which looks the mapper up from the result set metadata. */
+    @Benchmark
+    public Material extract() {
+        return dao.extract(resultSet, Material.class);
+    }
+
+    /** One row mapped with a mapper obtained once per result set, as the DAO loops do. */
+    @Benchmark
+    public Material rowMapper() throws SQLException {
+        return mapper.map(resultSet);
+    }
+
+    @Benchmark
+    public void setParameter() throws SQLException {
+        dao.setParameter(statement, 1, "2x4 lumber", String.class);
+        dao.setParameter(statement, 2, 12, Integer.class);
+        dao.setParameter(statement, 3, new BigDecimal("4.99"), BigDecimal.class);
+        dao.setParameter(statement, 4, null, Integer.class);
+    }
+
+    @Benchmark
+    public void camelCaseToSnakeCase(Blackhole blackhole) {
+        blackhole.consume(DaoBase.camelCaseToSnakeCase("materialName"));
+        blackhole.consume(DaoBase.camelCaseToSnakeCase("estimatedHours"));
+        blackhole.consume(DaoBase.camelCaseToSnakeCase("projectId"));
+    }
+
+    @Benchmark
+    public String projectToString() {
+        return project.toString();
+    }
+
+    private interface Handler {
+        Object handle(String methodName, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> handler.handle(method.getName(), args)));
+    }
+}
@@ -1,11 +1,11 @@
 import projects.entity.Project;
+import projects.exception.ProjectConflictException;
 import projects.service.ProjectService;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Scanner;
 import java.math.BigDecimal;
-import java.lang.reflect.Field;
 
 public class ProjectsApp {
     private List<String> operations = List.of(
@@ -73,78 +73,55 @@ public class ProjectsApp {
     }
 
     private void updateProjectDetails() {
-        // a. Check if curProject is null
-        if (curProject == null) {
+        if (Objects.isNull(curProject)) {
             System.out.println("\nPlease select a project.");
             return;
         }
 
-        // b. Print current project details
-        System.out.println("Current project details:");
-        try {
-            Field[] fields = Project.class.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                String fieldName = field.getName();
-                Object fieldValue = field.get(curProject);
-                System.out.println(fieldName + ": " + fieldValue);
-            }
-        } catch (IllegalAccessException e) {
-            System.out.println("Error accessing project fields: " + e.getMessage());
-        }
+        /* Only the details entered here are set, so only those columns are updated. */
+        Project project = new Project();
+        project.setProjectId(curProject.getProjectId());
+        project.setVersion(curProject.getVersion());
 
-        // c. Create new Project object and update fields
-        Project newProject = new Project();
-        Scanner scanner = new Scanner(System.in);
+        String projectName = getStringInput("Enter the project name [" + curProject.getProjectName() + "]");
+        BigDecimal estimatedHours = getDecimalInput("Enter the estimated hours [" + curProject.getEstimatedHours() + "]");
+        BigDecimal actualHours = getDecimalInput("Enter the actual hours [" + curProject.getActualHours() + "]");
+        Integer difficulty = getIntInput("Enter the project difficulty (1-5) [" + curProject.getDifficulty() + "]");
+        String notes = getStringInput("Enter the project notes [" + curProject.getNotes() + "]");
 
-        try {
-            Field[] fields = Project.class.getDeclaredFields();
-            for (Field field : fields) {
-                field.setAccessible(true);
-                String fieldName = field.getName();
-                if (fieldName.equals("projectId") || fieldName.equals("materials") || fieldName.equals("categories")|| fieldName.equals("steps")) {
-                    continue; // Skip fields that shouldn't be modified here
-                }
-                System.out.print("Enter new value for " + fieldName + " (or press Enter to keep current value): ");
-                String userInput = scanner.nextLine().trim();
+        if (Objects.nonNull(projectName)) {
+            project.setProjectName(projectName);
+        }
 
-                if (!userInput.isEmpty()) {
-                    setFieldValue(newProject, field, userInput);
-                } else {
-                    field.set(newProject, field.get(curProject));
-                }
-            }
-        } catch (IllegalAccessException e) {
-            System.out.println("Error updating project fields: " + e.getMessage());
+        if (Objects.nonNull(estimatedHours)) {
+            project.setEstimatedHours(estimatedHours);
         }
 
-        // d. Set the project ID
-        newProject.setProjectId(curProject.getProjectId());
+        if (Objects.nonNull(actualHours)) {
+            project.setActualHours(actualHours);
+        }
 
-        // e. Call projectService.modifyProjectDetails()
-        projectService.modifyProjectDetails(newProject);
+        if (Objects.nonNull(difficulty)) {
+            project.setDifficulty(difficulty);
+        }
 
-        // f. Reread the current project
-        curProject = projectService.fetchProjectById(curProject.getProjectId());
+        if (Objects.nonNull(notes)) {
+            project.setNotes(notes);
+        }
 
-        System.out.println("Project details updated successfully.");
-    }
+        if (!project.isModified()) {
+            System.out.println("\nNo changes entered.");
+            return;
+        }
 
-    private void setFieldValue(Project project, Field field, String value) {
         try {
-            Class<?> fieldType = field.getType();
-            if (fieldType == String.class) {
-                field.set(project, value);
-            } else if (fieldType == Integer.class || fieldType == int.class) {
-                field.set(project, Integer.parseInt(value));
-            } else if (fieldType == BigDecimal.class) {
-                field.set(project, new BigDecimal(value));
-            } else if (fieldType == Double.class || fieldType == double.class) {
-                field.set(project, Double.parseDouble(value));
-            }
-        } catch (IllegalAccessException | IllegalArgumentException e) {
-            System.out.println("Error setting field " + field.getName() + ": " + e.getMessage());
+            projectService.modifyProjectDetails(project);
+            System.out.println("Project details updated successfully.");
+        } catch (ProjectConflictException e) {
+            System.out.println("\nThe project was changed by someone else. Review it and try again.");
         }
+
+        curProject = projectService.fetchProjectById(curProject.getProjectId());
     }
 
     private void createProject() {
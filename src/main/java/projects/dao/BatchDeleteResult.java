@@ -0,0 +1,62 @@
+package projects.dao;
+
+import projects.exception.DbException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The outcome of {@link ProjectDao#deleteProjects(Collection, int)}. Projects are deleted in batches,
+ * each in its own transaction, so a failure rolls back only the batch it occurred in. Every requested
+ * project ID ends up in exactly one of the deleted, not found or failed sets.
+ *
+ * @author Promineo
+ *
+ */
+public class BatchDeleteResult {
+    private final Set<Integer> deleted = new LinkedHashSet<>();
+    private final Set<Integer> notFound = new LinkedHashSet<>();
+    private final Map<Integer, DbException> failures = new TreeMap<>();
+
+    void addDeleted(Collection<Integer> projectIds) {
+        deleted.addAll(projectIds);
+    }
+
+    void addNotFound(Collection<Integer> projectIds) {
+        notFound.addAll(projectIds);
+    }
+
+    void addFailure(Integer projectId, DbException cause) {
+        failures.put(projectId, cause);
+    }
+
+    /**
+     * @return The IDs of the projects that were deleted, together with their materials, steps and
+     *         category links.
+     */
+    public Set<Integer> getDeleted() {
+        return Collections.unmodifiableSet(deleted);
+    }
+
+    /**
+     * @return The requested IDs that did not belong to a project.
+     */
+    public Set<Integer> getNotFound() {
+        return Collections.unmodifiableSet(notFound);
+    }
+
+    /**
+     * @return The exception for each project that could not be deleted, keyed by project ID.
+     */
+    public Map<Integer, DbException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
@@ -0,0 +1,51 @@
+package projects.dao;
+
+import projects.entity.Project;
+import projects.exception.DbException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of {@link ProjectDao#insertProjects(List, int)}. Projects are inserted in batches, each
+ * in its own transaction, so a failure rolls back only the batch it occurred in. The projects of
+ * that batch are reported as failed, keyed by their position in the list that was passed in, and
+ * the remaining batches are still attempted.
+ *
+ * @author Promineo
+ *
+ */
+public class BatchInsertResult {
+    private final List<Project> inserted = new ArrayList<>();
+    private final Map<Integer, DbException> failures = new TreeMap<>();
+
+    void addInserted(List<Project> projects) {
+        inserted.addAll(projects);
+    }
+
+    void addFailure(int index, DbException cause) {
+        failures.put(index, cause);
+    }
+
+    /**
+     * @return The projects that were committed, with their IDs and the IDs of their children set.
+     */
+    public List<Project> getInserted() {
+        return Collections.unmodifiableList(inserted);
+    }
+
+    /**
+     * @return The exception for each project that was not inserted, keyed by the project's index in
+     *         the list passed to the insert.
+     */
+    public Map<Integer, DbException> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    public boolean hasFailures() {
+        return !failures.isEmpty();
+    }
+}
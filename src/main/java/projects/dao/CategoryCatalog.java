@@ -0,0 +1,132 @@
+package projects.dao;
+
+import projects.entity.Category;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An in-memory copy of the category table. The catalog is small and rarely changes, so project
+ * reads only fetch category IDs from project_category and look the categories up here instead of
+ * joining category on every read.
+ *
+ * <p>The catalog is loaded the first time it is used, on the caller's connection. It is loaded again
+ * whenever a lookup asks for a category ID it does not have, which picks up categories added since,
+ * and after {@link #refresh()}.
+ *
+ * @author Promineo
+ *
+ */
+class CategoryCatalog {
+    private static final String SQL = "SELECT * FROM category ORDER BY category_id";
+
+    /* Null until loaded. Replaced, never modified, so readers need no lock. */
+    private volatile Map<Integer, Category> categories;
+
+    /**
+     * Returns the catalog, loading it first if it has not been loaded or is missing any of the IDs.
+     * The categories in the returned map are shared and must not be modified; use
+     * {@link #copyOf(Category)} for categories handed to callers.
+     *
+     * @param conn The connection to load the catalog on, if it needs loading.
+     * @param categoryIds The IDs the caller is about to look up.
+     * @return The categories keyed by ID.
+     * @throws SQLException Thrown if the catalog cannot be loaded.
+     */
+    Map<Integer, Category> categories(Connection conn, Collection<Integer> categoryIds) throws SQLException {
+        Map<Integer, Category> current = categories;
+
+        if (Objects.isNull(current) || !current.keySet().containsAll(categoryIds)) {
+            current = load(conn, current, false);
+        }
+
+        return current;
+    }
+
+    /**
+     * Looks up categories by ID.
+     *
+     * @param conn The connection to load the catalog on, if it needs loading.
+     * @param categoryIds The category IDs.
+     * @return New category objects in the order of the IDs. IDs of categories that no longer exist
+     *         are skipped.
+     * @throws SQLException Thrown if the catalog cannot be loaded.
+     */
+    List<Category> resolve(Connection conn, List<Integer> categoryIds) throws SQLException {
+        Map<Integer, Category> current = categories(conn, categoryIds);
+        List<Category> resolved = new ArrayList<>(categoryIds.size());
+
+        for (Integer categoryId : categoryIds) {
+            Category category = current.get(categoryId);
+
+            if (Objects.nonNull(category)) {
+                resolved.add(copyOf(category));
+            }
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Loads the catalog now, for callers that need every category rather than particular IDs. A
+     * lookup by ID can tell when the catalog is missing a category, but a caller listing them all
+     * cannot, so it must read the table to see categories added since the last load.
+     *
+     * @param conn The connection to load the catalog on.
+     * @return The categories keyed by ID, in ID order.
+     * @throws SQLException Thrown if the catalog cannot be loaded.
+     */
+    Map<Integer, Category> reload(Connection conn) throws SQLException {
+        return load(conn, null, true);
+    }
+
+    /**
+     * Makes the next lookup load the catalog again.
+     */
+    void refresh() {
+        categories = null;
+    }
+
+    static Category copyOf(Category category) {
+        Category copy = new Category();
+
+        copy.setCategoryId(category.getCategoryId());
+        copy.setCategoryName(category.getCategoryName());
+
+        return copy;
+    }
+
+    /*
+     * Loads the catalog unless another thread has replaced the one the caller saw while this thread
+     * waited for the lock, or always when force is set.
+     */
+    private synchronized Map<Integer, Category> load(Connection conn, Map<Integer, Category> seen, boolean force)
+            throws SQLException {
+        if (!force && categories != seen && Objects.nonNull(categories)) {
+            return categories;
+        }
+
+        Map<Integer, Category> loaded = new LinkedHashMap<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(SQL); ResultSet rs = stmt.executeQuery()) {
+            RowMapper<Category> mapper = RowMapper.forResultSet(rs, Category.class);
+
+            while (rs.next()) {
+                Category category = mapper.map(rs);
+                loaded.put(category.getCategoryId(), category);
+            }
+        }
+
+        categories = Collections.unmodifiableMap(loaded);
+        return categories;
+    }
+}
@@ -0,0 +1,748 @@
+package projects.dao;
+
+import projects.exception.DbException;
+import projects.metrics.Instrumentation;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A small bounded JDBC connection pool. Physical connections are opened lazily up to the maximum
+ * size and handed out wrapped in a proxy whose {@link Connection#close()} returns the physical
+ * connection to the pool instead of closing it. This means the DAO code can keep using
+ * try-with-resources exactly as it did when every call opened a new connection.
+ *
+ * <p>The pool provides:
+ * <ul>
+ * <li>A minimum number of connections kept open and a hard maximum.</li>
+ * <li>A borrow timeout: callers wait at most that long for a free connection.</li>
+ * <li>Validation on borrow for connections that have been idle for a while.</li>
+ * <li>Read-only and read-write borrowing, switching a connection's mode only when needed.</li>
+ * <li>Rollback on return of any transaction the borrower left open, including one opened with a
+ * START TRANSACTION statement; see {@link TransactionTracker}.</li>
+ * <li>Idle eviction down to the minimum size.</li>
+ * <li>Leak detection: a connection held longer than the leak threshold is counted and reported to
+ * the installed {@link projects.metrics.ConnectionEvents} along with the stack trace of the code that
+ * borrowed it.</li>
+ * <li>A prepared statement cache per connection. Closing a statement prepared with
+ * {@link Connection#prepareStatement(String)} or {@link Connection#prepareStatement(String, int)}
+ * keeps it open for the next caller preparing the same SQL on that connection.</li>
+ * </ul>
+ *
+ * @author Promineo
+ *
+ */
+class ConnectionPool implements AutoCloseable {
+    /* Connections used more recently than this are handed out without a round trip to validate them. */
+    private static final long VALIDATION_IDLE_MILLIS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long HOUSEKEEPING_PERIOD_MILLIS = 5_000;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final LongAdder statementsPrepared = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder busyRefusals = new LongAdder();
+    private final LongAdder leaksReported = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Map<PooledConnection, Checkout> checkedOut = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService housekeeper;
+
+    /* Number of physical connections that are open or being opened. Guarded by lock. */
+    private int total;
+    private boolean closed;
+
+    ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                   long borrowTimeoutMillis, long idleTimeoutMillis, long leakThresholdMillis,
+                   int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, HOUSEKEEPING_PERIOD_MILLIS,
+                HOUSEKEEPING_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new physical connection if none are idle and the
+     * pool is below its maximum size. Closing the returned connection gives it back to the pool.
+     *
+     * @return A pooled connection.
+     * @throws SQLException Thrown if a physical connection cannot be opened.
+     * @throws DbException Thrown if no connection becomes available within the borrow timeout.
+     */
+    Connection borrow() throws SQLException {
+        return borrow(false);
+    }
+
+    /**
+     * Borrows a connection in read-only or read-write mode. The mode is left in place when the
+     * connection is returned, and idle connections already in the requested mode are preferred, so a
+     * steady mix of reads and writes rarely has to switch modes. When a switch is needed it costs one
+     * round trip.
+     *
+     * @param readOnly True to borrow a read-only connection.
+     * @return A pooled connection.
+     * @throws SQLException Thrown if a physical connection cannot be opened or its mode set.
+     * @throws DbException Thrown if no connection becomes available within the borrow timeout.
+     */
+    Connection borrow(boolean readOnly) throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (candidate == null && !create) {
+                    if (closed) {
+                        throw new DbException("Connection pool is closed");
+                    }
+
+                    candidate = takeIdle(readOnly);
+
+                    if (candidate == null) {
+                        if (total < maxSize) {
+                            total++;
+                            create = true;
+                        } else {
+                            long remaining = deadline - System.nanoTime();
+
+                            if (remaining <= 0) {
+                                throw new DbException("Timed out after " + borrowTimeoutMillis
+                                        + "ms waiting for a database connection (pool size " + maxSize + ")");
+                            }
+
+                            available.awaitNanos(remaining);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DbException("Interrupted while waiting for a database connection", e);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                candidate = open();
+            } else if (!isUsable(candidate)) {
+                discard(candidate);
+                continue;
+            }
+
+            try {
+                if (candidate.readOnly != readOnly) {
+                    candidate.physical.setReadOnly(readOnly);
+                    candidate.readOnly = readOnly;
+                }
+            } catch (SQLException e) {
+                discard(candidate);
+                throw e;
+            }
+
+            return checkout(candidate);
+        }
+    }
+
+    /**
+     * Borrows several connections at once, or none. If enough connections are idle or can be opened
+     * right now they are all reserved together; otherwise null is returned straight away. A task that
+     * needs several connections must not borrow them one at a time: concurrent callers could each
+     * hold some while waiting for the rest, and wait on one another until the borrow timeout.
+     *
+     * @param count The number of connections needed.
+     * @param readOnly True to borrow read-only connections.
+     * @return The connections, or null if the pool cannot supply them all without waiting.
+     * @throws SQLException Thrown if a physical connection cannot be opened or its mode set. No
+     *         connections are held when this is thrown.
+     * @throws DbException Thrown if the pool is closed.
+     */
+    List<Connection> tryBorrow(int count, boolean readOnly) throws SQLException {
+        List<PooledConnection> reserved = new ArrayList<>(count);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new DbException("Connection pool is closed");
+            }
+
+            if (idle.size() + maxSize - total < count) {
+                busyRefusals.increment();
+                return null;
+            }
+
+            while (reserved.size() < count && !idle.isEmpty()) {
+                reserved.add(takeIdle(readOnly));
+            }
+
+            /* Slots for the connections still to be opened. */
+            total += count - reserved.size();
+        } finally {
+            lock.unlock();
+        }
+
+        List<Connection> borrowed = new ArrayList<>(count);
+        int index = 0;
+
+        try {
+            for (; index < count; index++) {
+                PooledConnection candidate = index < reserved.size() ? reserved.get(index) : null;
+
+                if (candidate != null && !isUsable(candidate)) {
+                    /* The slot is kept for the replacement opened below. */
+                    closePhysical(candidate);
+                    candidate = null;
+                }
+
+                if (candidate == null) {
+                    candidate = open();
+                }
+
+                try {
+                    if (candidate.readOnly != readOnly) {
+                        candidate.physical.setReadOnly(readOnly);
+                        candidate.readOnly = readOnly;
+                    }
+                } catch (SQLException e) {
+                    discard(candidate);
+                    throw e;
+                }
+
+                borrowed.add(checkout(candidate));
+            }
+
+            return borrowed;
+        } catch (SQLException | RuntimeException e) {
+            /* The connection that failed has already given up its slot; release the ones not reached. */
+            for (int i = index + 1; i < count; i++) {
+                if (i < reserved.size()) {
+                    giveBack(reserved.get(i), false);
+                } else {
+                    releaseSlot();
+                }
+            }
+
+            for (Connection conn : borrowed) {
+                conn.close();
+            }
+
+            throw e;
+        }
+    }
+
+    /* Takes the most recently used idle connection, preferring one already in the given mode. */
+    private PooledConnection takeIdle(boolean readOnly) {
+        for (Iterator<PooledConnection> it = idle.iterator(); it.hasNext(); ) {
+            PooledConnection pooled = it.next();
+
+            if (pooled.readOnly == readOnly) {
+                it.remove();
+                return pooled;
+            }
+        }
+
+        return idle.pollFirst();
+    }
+
+    /**
+     * @return The number of connections currently checked out. This does not take the pool lock, so
+     *         it is cheap enough to call on every borrow.
+     */
+    int inUse() {
+        return checkedOut.size();
+    }
+
+    PoolStats stats() {
+        lock.lock();
+        try {
+            return new PoolStats(total, idle.size(), statementsPrepared.sum(), statementCacheHits.sum(),
+                    busyRefusals.sum(), leaksReported.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes all idle connections and stops the housekeeper. Connections that are still checked out
+     * are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        housekeeper.shutdownNow();
+
+        lock.lock();
+        try {
+            closed = true;
+
+            while (!idle.isEmpty()) {
+                closePhysical(idle.pollFirst());
+                total--;
+            }
+
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, user, password),
+                    new StatementCache(statementCacheSize));
+        } catch (SQLException | RuntimeException e) {
+            releaseSlot();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_IDLE_MILLIS) {
+            return true;
+        }
+
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection checkout(PooledConnection pooled) {
+        Throwable borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+        Checkout checkout = new Checkout(pooled, borrowSite);
+        checkedOut.put(pooled, checkout);
+
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, checkout);
+    }
+
+    /**
+     * Returns a physical connection to the pool. Any transaction left open by the borrower is rolled
+     * back and auto-commit is restored so that the next borrower sees a clean connection.
+     *
+     * @param inTransaction True if the borrower marked a transaction as open through
+     *        {@link TransactionTracker} and did not mark it ended.
+     */
+    private void giveBack(PooledConnection pooled, boolean inTransaction) {
+        checkedOut.remove(pooled);
+
+        try {
+            if (!pooled.physical.getAutoCommit()) {
+                pooled.physical.rollback();
+                pooled.physical.setAutoCommit(true);
+            } else if (inTransaction) {
+                /* A START TRANSACTION statement leaves auto-commit on, so the driver cannot roll it back. */
+                try (Statement stmt = pooled.physical.createStatement()) {
+                    stmt.execute("ROLLBACK");
+                }
+            }
+        } catch (SQLException e) {
+            discard(pooled);
+            return;
+        }
+
+        pooled.lastUsed = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            if (closed) {
+                closePhysical(pooled);
+                total--;
+            } else {
+                idle.offerFirst(pooled);
+            }
+
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        closePhysical(pooled);
+        releaseSlot();
+    }
+
+    /* Gives up a slot in the pool after a physical connection was closed or failed to open. */
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closePhysical(PooledConnection pooled) {
+        pooled.statements.closeAll();
+
+        try {
+            pooled.physical.close();
+        } catch (SQLException e) {
+            /* The connection is being thrown away; there is nothing more to do with it. */
+        }
+    }
+
+    /**
+     * Evicts connections idle for longer than the idle timeout (never going below the minimum size),
+     * tops the pool back up to the minimum size and reports leaked connections. The housekeeper runs
+     * this every few seconds; it is package-private so tests need not wait for it.
+     */
+    void housekeep() {
+        long now = System.currentTimeMillis();
+
+        lock.lock();
+        try {
+            Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+
+            while (oldestFirst.hasNext() && total > minSize) {
+                PooledConnection pooled = oldestFirst.next();
+
+                if (now - pooled.lastUsed > idleTimeoutMillis) {
+                    oldestFirst.remove();
+                    closePhysical(pooled);
+                    total--;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        fillToMinimum();
+
+        if (leakThresholdMillis > 0) {
+            for (Checkout checkout : checkedOut.values()) {
+                if (!checkout.leakReported && now - checkout.borrowedAt > leakThresholdMillis) {
+                    checkout.leakReported = true;
+                    leaksReported.increment();
+                    Instrumentation.connectionEvents().connectionLeaked(now - checkout.borrowedAt,
+                            checkout.borrowSite);
+                }
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= minSize) {
+                    return;
+                }
+
+                total++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled;
+
+            try {
+                pooled = open();
+            } catch (SQLException e) {
+                releaseSlot();
+                Instrumentation.connectionEvents().connectionOpenFailed(e);
+                return;
+            }
+
+            lock.lock();
+            try {
+                if (closed) {
+                    closePhysical(pooled);
+                    total--;
+                    return;
+                }
+
+                idle.offerLast(pooled);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool.
+     */
+    private static class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile boolean readOnly;
+
+        PooledConnection(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+    }
+
+    /**
+     * Tracks a transaction opened with a START TRANSACTION statement. Such a transaction leaves
+     * auto-commit on, so the pool cannot see it from the connection. Borrowers that open one mark it
+     * here, through {@link Connection#unwrap(Class)} on a pooled connection, and mark it ended once
+     * it is committed; a connection returned while it is still marked open is rolled back first.
+     */
+    interface TransactionTracker {
+        void setInTransaction(boolean inTransaction);
+    }
+
+    /**
+     * One loan of a physical connection. This is the invocation handler behind the proxy given to
+     * callers, so closing the proxy twice, or using it after closing it, cannot affect the next
+     * borrower of the same physical connection.
+     */
+    private class Checkout implements InvocationHandler, TransactionTracker {
+        private final PooledConnection pooled;
+        private final Throwable borrowSite;
+        private final long borrowedAt = System.currentTimeMillis();
+        private volatile boolean returned;
+        private volatile boolean leakReported;
+        private volatile boolean inTransaction;
+
+        Checkout(PooledConnection pooled, Throwable borrowSite) {
+            this.pooled = pooled;
+            this.borrowSite = borrowSite;
+        }
+
+        @Override
+        public void setInTransaction(boolean inTransaction) {
+            this.inTransaction = inTransaction;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled, inTransaction);
+                    }
+                    return null;
+
+                case "unwrap":
+                    if (args[0] == TransactionTracker.class) {
+                        return this;
+                    }
+                    return delegate(method, args);
+
+                case "isWrapperFor":
+                    return args[0] == TransactionTracker.class || (Boolean) delegate(method, args);
+
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+
+                case "setReadOnly":
+                    delegate(method, args);
+                    pooled.readOnly = (Boolean) args[0];
+                    return null;
+
+                case "equals":
+                    return proxy == args[0];
+
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+
+                case "toString":
+                    return "Pooled[" + pooled.physical + "]";
+
+                case "prepareStatement":
+                    Class<?>[] parameterTypes = method.getParameterTypes();
+
+                    if (parameterTypes.length == 1) {
+                        return prepareCached(proxy, (String) args[0], Statement.NO_GENERATED_KEYS);
+                    }
+
+                    if (parameterTypes.length == 2 && parameterTypes[1] == int.class) {
+                        return prepareCached(proxy, (String) args[0], (Integer) args[1]);
+                    }
+
+                    statementsPrepared.increment();
+                    return delegate(method, args);
+
+                default:
+                    return delegate(method, args);
+            }
+        }
+
+        private Object delegate(Method method, Object[] args) throws Throwable {
+            if (returned) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            return invokeOn(pooled.physical, method, args);
+        }
+
+        private PreparedStatement prepareCached(Object proxy, String sql, int autoGeneratedKeys)
+                throws SQLException {
+            if (returned) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+
+            String key = StatementCache.key(sql, autoGeneratedKeys);
+            PreparedStatement stmt = pooled.statements.take(key);
+
+            if (stmt == null) {
+                statementsPrepared.increment();
+                stmt = pooled.physical.prepareStatement(sql, autoGeneratedKeys);
+            } else {
+                statementCacheHits.increment();
+            }
+
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class },
+                    new CachedStatement(stmt, key, pooled.statements, (Connection) proxy));
+        }
+    }
+
+    /**
+     * A loan of a cached prepared statement. Closing it clears its parameters and batch, restores
+     * any fetch size, row limit or timeout the caller changed, and puts it back in the connection's
+     * statement cache instead of closing it. Without the restore a streaming fetch size of
+     * Integer.MIN_VALUE, for example, would carry over to the next caller of the same SQL.
+     */
+    private static class CachedStatement implements InvocationHandler {
+        private final PreparedStatement stmt;
+        private final String key;
+        private final StatementCache cache;
+        private final Connection conn;
+        private boolean closed;
+
+        /* The settings as they were before this loan changed them, or null if unchanged. */
+        private Integer fetchSize;
+        private Integer maxRows;
+        private Integer queryTimeout;
+
+        CachedStatement(PreparedStatement stmt, String key, StatementCache cache, Connection conn) {
+            this.stmt = stmt;
+            this.key = key;
+            this.cache = cache;
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release();
+                    }
+                    return null;
+
+                case "isClosed":
+                    return closed || stmt.isClosed();
+
+                case "getConnection":
+                    return conn;
+
+                case "equals":
+                    return proxy == args[0];
+
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+
+                    rememberSetting(method.getName());
+                    return invokeOn(stmt, method, args);
+            }
+        }
+
+        private void rememberSetting(String methodName) throws SQLException {
+            if (methodName.equals("setFetchSize") && fetchSize == null) {
+                fetchSize = stmt.getFetchSize();
+            } else if ((methodName.equals("setMaxRows") || methodName.equals("setLargeMaxRows")) && maxRows == null) {
+                maxRows = stmt.getMaxRows();
+            } else if (methodName.equals("setQueryTimeout") && queryTimeout == null) {
+                queryTimeout = stmt.getQueryTimeout();
+            }
+        }
+
+        private void release() {
+            try {
+                if (fetchSize != null) {
+                    stmt.setFetchSize(fetchSize);
+                }
+
+                if (maxRows != null) {
+                    stmt.setMaxRows(maxRows);
+                }
+
+                if (queryTimeout != null) {
+                    stmt.setQueryTimeout(queryTimeout);
+                }
+
+                stmt.clearParameters();
+                stmt.clearBatch();
+                stmt.clearWarnings();
+                cache.put(key, stmt);
+            } catch (SQLException e) {
+                try {
+                    stmt.close();
+                } catch (SQLException ignored) {
+                    /* The statement is being thrown away; there is nothing more to do with it. */
+                }
+            }
+        }
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
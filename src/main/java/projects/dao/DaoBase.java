@@ -3,19 +3,20 @@
  */
 package projects.dao;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
+import projects.metrics.DaoMetrics;
+import projects.metrics.Instrumentation;
+import projects.metrics.StatementLog;
+
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.sql.Time;
-import java.sql.Timestamp;
 import java.sql.Types;
-import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -25,6 +26,81 @@ import java.util.Objects;
  *
  */
 public abstract class DaoBase {
+    /**
+     * This borrows a connection for a DAO operation. When DAO metrics are enabled, the time spent
+     * waiting for the connection is recorded and the connection is wrapped so that statement
+     * latency, rows read, commits and rollbacks are recorded against the operation. When the
+     * statement log is enabled, the wrapped connection also reports slow and sampled statements with
+     * their SQL and bound parameters. When neither is enabled the pooled connection is returned as
+     * is.
+     *
+     * @param operation The name of the DAO method, used to group the metrics.
+     * @return A pooled connection, which must be closed to return it to the pool.
+     */
+    protected Connection getConnection(String operation) {
+        return borrow(operation, false);
+    }
+
+    /**
+     * This borrows a read-only connection for a DAO operation that only reads. It is instrumented in
+     * the same way as {@link #getConnection(String)}. A single query can run on it directly in
+     * auto-commit mode; several queries that must see the same data can use
+     * {@link #startReadOnlyTransaction(Connection)}.
+     *
+     * @param operation The name of the DAO method, used to group the metrics.
+     * @return A pooled, read-only connection, which must be closed to return it to the pool.
+     */
+    protected Connection getReadOnlyConnection(String operation) {
+        return borrow(operation, true);
+    }
+
+    /**
+     * This borrows several read-only connections to one server at once, for an operation that runs
+     * queries on them concurrently. Each is instrumented like {@link #getConnection(String)}. The
+     * connections are reserved together or not at all, so callers never hold some while waiting for
+     * the rest.
+     *
+     * @param operation The name of the DAO method, used to group the metrics.
+     * @param count The number of connections needed.
+     * @return The pooled connections, which must all be closed, or null if they are not all
+     *         available right now.
+     */
+    protected List<Connection> tryGetReadOnlyConnections(String operation, int count) {
+        DaoMetrics metrics = Instrumentation.metrics();
+        StatementLog log = Instrumentation.statementLog();
+        long start = System.nanoTime();
+        List<Connection> connections = DbConnection.tryGetReadOnlyConnections(count);
+
+        if(Objects.isNull(connections) || (!metrics.isEnabled() && !log.isEnabled())) {
+            return connections;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        List<Connection> instrumented = new ArrayList<>(connections.size());
+
+        for (Connection conn : connections) {
+            metrics.recordConnectionAcquire(operation, elapsed);
+            instrumented.add(InstrumentedJdbc.connection(conn, operation, metrics, log));
+        }
+
+        return instrumented;
+    }
+
+    private Connection borrow(String operation, boolean readOnly) {
+        DaoMetrics metrics = Instrumentation.metrics();
+        StatementLog log = Instrumentation.statementLog();
+
+        if(!metrics.isEnabled() && !log.isEnabled()) {
+            return readOnly ? DbConnection.getReadOnlyConnection() : DbConnection.getConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection conn = readOnly ? DbConnection.getReadOnlyConnection() : DbConnection.getConnection();
+        metrics.recordConnectionAcquire(operation, System.nanoTime() - start);
+
+        return InstrumentedJdbc.connection(conn, operation, metrics, log);
+    }
+
     /**
      * This starts a MySQL transaction. Normally MySQL starts a transaction before every request and
      * commits it after each request. By turning auto-commit off, the transaction is only committed
@@ -38,13 +114,81 @@ public abstract class DaoBase {
     }
 
     /**
-     * Commit the transaction. This will write all the changes, if any, to the database.
+     * This starts a read-only transaction without turning auto-commit off. The transaction is opened
+     * with a single statement and must be ended with {@link #endReadOnlyTransaction(Connection)}, so
+     * a group of reads that need to see the same data costs two extra round trips instead of the
+     * three that turning auto-commit off and on again around a commit would take.
+     *
+     * @param conn The connection on which to start the transaction.
+     * @throws SQLException Thrown if an error occurs starting the transaction.
+     */
+    protected void startReadOnlyTransaction(Connection conn) throws SQLException {
+        setTransactionOpen(conn, true);
+        executeStatement(conn, "START TRANSACTION READ ONLY");
+    }
+
+    /**
+     * This ends a transaction started with {@link #startReadOnlyTransaction(Connection)} or with a
+     * START TRANSACTION statement sent by the DAO. It is also safe to call after a failure that left
+     * no transaction open.
+     *
+     * @param conn The connection on which to end the transaction.
+     * @throws SQLException Thrown if an error occurs ending the transaction.
+     */
+    protected void endReadOnlyTransaction(Connection conn) throws SQLException {
+        executeStatement(conn, "COMMIT");
+        setTransactionOpen(conn, false);
+    }
+
+    /**
+     * This ends a read-only transaction after the reads in it failed. An error ending the
+     * transaction is added to the original failure as a suppressed exception instead of replacing
+     * it, and the transaction is then left for the pool to roll back when the connection is closed.
+     *
+     * @param conn The connection on which to end the transaction.
+     * @param failure The exception the reads failed with.
+     */
+    protected void endReadOnlyTransaction(Connection conn, Exception failure) {
+        try {
+            endReadOnlyTransaction(conn);
+        } catch (SQLException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * This tells the connection pool whether a transaction that leaves auto-commit on, such as one
+     * opened with a START TRANSACTION statement, is open on the connection. The pool rolls back a
+     * connection that is returned while marked open, so mark the transaction open before sending the
+     * statement that starts it. Connections that do not come from the pool are left alone.
+     *
+     * @param conn The connection on which the transaction runs.
+     * @param open True when the transaction is opened, false once it has been committed.
+     * @throws SQLException Thrown if the connection cannot be unwrapped.
+     */
+    protected void setTransactionOpen(Connection conn, boolean open) throws SQLException {
+        if(conn.isWrapperFor(ConnectionPool.TransactionTracker.class)) {
+            conn.unwrap(ConnectionPool.TransactionTracker.class).setInTransaction(open);
+        }
+    }
+
+    private void executeStatement(Connection conn, String sql) throws SQLException {
+        try(Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Commit the transaction. This will write all the changes, if any, to the database. Reads on
+     * this thread are then sent to the primary for a short while, so they see the changes even when
+     * replicas are lagging.
      *
      * @param conn The connection on which to commit the transaction.
      * @throws SQLException Thrown if an error occurs committing the transaction.
      */
     protected void commitTransaction(Connection conn) throws SQLException {
         conn.commit();
+        DbConnection.recordWrite();
     }
 
     /**
@@ -106,6 +250,63 @@ public abstract class DaoBase {
         }
     }
 
+    /**
+     * This builds the comma-separated list of parameter markers for an IN clause. For example, a count
+     * of three returns "?, ?, ?".
+     *
+     * @param count The number of parameter markers. Must be at least one.
+     * @return The parameter markers.
+     */
+    protected String placeholders(int count) {
+        StringBuilder markers = new StringBuilder(count * 3);
+
+        for(int i = 0; i < count; i++) {
+            markers.append(i == 0 ? "?" : ", ?");
+        }
+
+        return markers.toString();
+    }
+
+    /**
+     * This sets a run of integer parameters, typically the values of an IN clause built with
+     * {@link #placeholders(int)}.
+     *
+     * @param stmt The prepared statement on which to set the parameters.
+     * @param firstIndex The one-based index of the first parameter.
+     * @param values The parameter values.
+     * @return The index of the parameter following the last one set.
+     * @throws SQLException Thrown if an error occurs.
+     */
+    protected int setParameters(PreparedStatement stmt, int firstIndex, List<Integer> values)
+            throws SQLException {
+        int parameterIndex = firstIndex;
+
+        for(Integer value : values) {
+            setParameter(stmt, parameterIndex++, value, Integer.class);
+        }
+
+        return parameterIndex;
+    }
+
+    /**
+     * This splits a list into consecutive sublists of at most the given size. It is used to keep IN
+     * clauses to a reasonable number of parameters.
+     *
+     * @param <T> The element type.
+     * @param values The list to split.
+     * @param chunkSize The maximum size of each sublist.
+     * @return The sublists, which are views of the original list.
+     */
+    protected <T> List<List<T>> chunk(List<T> values, int chunkSize) {
+        List<List<T>> chunks = new ArrayList<>();
+
+        for(int from = 0; from < values.size(); from += chunkSize) {
+            chunks.add(values.subList(from, Math.min(from + chunkSize, values.size())));
+        }
+
+        return chunks;
+    }
+
     /**
      * Converts from a Java class to a java.sql.Types value.
      *
@@ -137,73 +338,52 @@ public abstract class DaoBase {
     }
 
     /**
-     * This retrieves the number of child rows and adds one to the value. It is used to set the order
-     * of a child row. For a *real* application, a more sophisticated approach is desired. This method
-     * does not allow for entity reordering and does not allow for an entity to be deleted.
+     * This returns the integer primary key value generated by a single-row insert. It allows the ID to
+     * be inserted into the entity object after inserting it into the table. The key is returned by the
+     * driver with the insert itself, so no extra query is needed. The statement must be prepared with
+     * {@link Statement#RETURN_GENERATED_KEYS}.
      *
-     * @param conn The connection
-     * @param id The ID of the parent entity
-     * @param tableName The name of the table with the child rows
-     * @param idName The name of the parent ID field
-     * @return The count of the entities attached to the parent plus one
-     * @throws SQLException Thrown if an error occurs.
+     * @param stmt The statement that performed the insert
+     * @return The primary key value
+     * @throws SQLException Thrown if an error occurs
      */
-    protected Integer getNextSequenceNumber(Connection conn, Integer id, String tableName,
-                                            String idName) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM " + tableName + " WHERE " + idName + " = ?";
-
-        try(PreparedStatement stmt = conn.prepareStatement(sql)) {
-            setParameter(stmt, 1, id, Integer.class);
-
-            try(ResultSet rs = stmt.executeQuery()) {
-                if(rs.next()) {
-                    return rs.getInt(1) + 1;
-                }
-
-                return 1;
+    protected Integer getGeneratedId(Statement stmt) throws SQLException {
+        try(ResultSet rs = stmt.getGeneratedKeys()) {
+            if(rs.next()) {
+                return rs.getInt(1);
             }
+
+            throw new SQLException("Unable to retrieve the primary key value. No result set!");
         }
     }
 
     /**
-     * This returns the integer primary key value of the last row inserted into the given table. It
-     * allows the ID to be inserted into the entity object after inserting it into the table.
-     *
-     * The other way of doing this is to call {@link Statement#getGeneratedKeys()}, but this returns a
-     * result set that needs to be parsed for the ID. It's not really any easier than this approach
-     * but should be closer to database-agnostic.
+     * This reads the auto-increment keys generated by a statement that was prepared with
+     * {@link Statement#RETURN_GENERATED_KEYS}. For a batch, there is one key per inserted row, in the
+     * order the rows were added to the batch.
      *
-     * @param conn The connection
-     * @param table The name of the table on which to get the last inserted primary key value
-     * @return The primary key value
+     * @param stmt The statement that performed the insert.
+     * @return The generated primary key values.
      * @throws SQLException Thrown if an error occurs
      */
-    protected Integer getLastInsertId(Connection conn, String table) throws SQLException {
-        String sql = String.format("SELECT LAST_INSERT_ID() FROM %s", table);
+    protected List<Integer> getGeneratedIds(Statement stmt) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
 
-        try(Statement stmt = conn.createStatement()) {
-            try(ResultSet rs = stmt.executeQuery(sql)) {
-                if(rs.next()) {
-                    return rs.getInt(1);
-                }
-
-                throw new SQLException("Unable to retrieve the primary key value. No result set!");
+        try(ResultSet rs = stmt.getGeneratedKeys()) {
+            while(rs.next()) {
+                ids.add(rs.getInt(1));
             }
         }
+
+        return ids;
     }
 
     /**
      * This extracts an object of the given type from a result set. The object must have a
-     * zero-argument constructor. It builds an object from a result set using reflection as follows:
-     * <ol>
-     * <li>The zero-argument constructor is obtained.</li>
-     * <li>An object of the given class type is created.</li>
-     * <li>A list of fields is obtained using reflection.</li>
-     * <li>The field name is converted from Java naming to SQL naming conventions (camel case to snake
-     * case). Obviously, for this to work, the Java name must match the column name. So, if the Java
-     * name is numServings, the column name must be num_servings.</li>
-     * <li>The value is assigned to the field in the object.</li>
-     * </ol>
+     * zero-argument constructor. Each field is matched to the column with the same name converted
+     * from Java naming to SQL naming conventions (camel case to snake case). Obviously, for this to
+     * work, the Java name must match the column name. So, if the Java name is numServings, the column
+     * name must be num_servings.
      *
      * Example: if a query returns values for a recipe, a Recipe object is returned. So:
      *
@@ -224,6 +404,9 @@ public abstract class DaoBase {
      * Since the result set does not contain a column named "ingredients", the value is left alone and
      * the list initialization is preserved.
      *
+     * When extracting more than one row from the same result set, get a mapper once with
+     * {@link #rowMapper(ResultSet, Class)} and use it for every row instead.
+     *
      * @param <T> The Generic for the type of object to create and return.
      * @param rs The result set in which to extract values. The result set must be positioned on the
      *        correct row by the caller.
@@ -232,67 +415,36 @@ public abstract class DaoBase {
      */
     protected <T> T extract(ResultSet rs, Class<T> classType) {
         try {
-            /* Obtain the constructor and create an object of the correct type. */
-            Constructor<T> con = classType.getConstructor();
-            T obj = con.newInstance();
-
-            /* Get the list of fields and loop through them. */
-            for(Field field : classType.getDeclaredFields()) {
-                String colName = camelCaseToSnakeCase(field.getName());
-                Class<?> fieldType = field.getType();
-
-                /*
-                 * Set the field accessible flag which means that we can populate even private fields
-                 * without using the setter.
-                 */
-                field.setAccessible(true);
-                Object fieldValue = null;
-
-                try {
-                    fieldValue = rs.getObject(colName);
-                }
-                catch(SQLException e) {
-                    /*
-                     * An exception caught here means that the field name isn't in the result set. Don't take
-                     * any action.
-                     */
-                }
-
-                /*
-                 * Only set the value in the object if there is a value with the same name in the result
-                 * set. This will preserve instance variables (like lists) that are assigned values when the
-                 * object is created.
-                 */
-                if(Objects.nonNull(fieldValue)) {
-                    /*
-                     * Convert the following types: Time -> LocalTime, and Timestamp -> LocalDateTime.
-                     */
-                    if(fieldValue instanceof Time && fieldType.equals(LocalTime.class)) {
-                        fieldValue = ((Time)fieldValue).toLocalTime();
-                    }
-                    else if(fieldValue instanceof Timestamp && fieldType.equals(LocalDateTime.class)) {
-                        fieldValue = ((Timestamp)fieldValue).toLocalDateTime();
-                    }
-
-                    field.set(obj, fieldValue);
-                }
-            }
-
-            return obj;
-
+            return rowMapper(rs, classType).map(rs);
         }
-        catch(Exception e) {
+        catch(SQLException e) {
             throw new DaoException("Unable to create object of type " + classType.getName(), e);
         }
     }
 
+    /**
+     * This returns a mapper that creates objects of the given type from the rows of the result set,
+     * following the same rules as {@link #extract(ResultSet, Class)}. The reflection is done when the
+     * mapper is first built for a class and column layout; after that mappers are served from a
+     * cache.
+     *
+     * @param <T> The type of object to create for each row.
+     * @param rs The result set. Only its metadata is read, so it need not be positioned on a row.
+     * @param classType The actual class type of the objects to create.
+     * @return The mapper for this result set.
+     * @throws SQLException Thrown if the result set metadata cannot be read.
+     */
+    protected <T> RowMapper<T> rowMapper(ResultSet rs, Class<T> classType) throws SQLException {
+        return RowMapper.forResultSet(rs, classType);
+    }
+
     /**
      * This converts a camel case value (rowInsertTime) to snake case (row_insert_time).
      *
      * @param identifier The name in camel case to convert.
      * @return The name converted to snake case.
      */
-    private String camelCaseToSnakeCase(String identifier) {
+    static String camelCaseToSnakeCase(String identifier) {
         StringBuilder nameBuilder = new StringBuilder();
 
         for(char ch : identifier.toCharArray()) {
@@ -0,0 +1,252 @@
+package projects.dao;
+
+import projects.exception.DbException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * The database connection settings. Each setting is looked up, in order of precedence, as:
+ * <ol>
+ * <li>A system property, e.g. -Dprojects.db.port=3307.</li>
+ * <li>An environment variable named after the property in upper case with dots replaced by
+ * underscores, e.g. PROJECTS_DB_PORT=3307 or PROJECTS_DB_MAXPOOLSIZE=20.</li>
+ * <li>A properties file using the property names as keys. The file is named by the
+ * projects.db.config system property or PROJECTS_DB_CONFIG environment variable; otherwise
+ * db.properties is read from the classpath if it is there.</li>
+ * <li>The built-in default.</li>
+ * </ol>
+ *
+ * <p>Settings are read once per {@link #load()}, so a changed file or property takes effect when
+ * {@link DbConnection#reload()} is called.
+ *
+ * @author Promineo
+ *
+ */
+final class DbConfig {
+    static final String CONFIG_FILE_PROPERTY = "projects.db.config";
+    private static final String CLASSPATH_CONFIG = "db.properties";
+
+    final String host;
+    final int port;
+    final String schema;
+    final String user;
+    final String password;
+
+    /* Read replicas, as a comma-separated list of host or host:port. */
+    final String replicas;
+    final String replicaSelection;
+    final long readYourWritesMillis;
+
+    final int minPoolSize;
+    final int maxPoolSize;
+    final long borrowTimeoutMillis;
+    final long idleTimeoutMillis;
+    final long leakThresholdMillis;
+    final int statementCacheSize;
+
+    /* Connector/J settings. */
+    final boolean useServerPrepStmts;
+    final boolean cachePrepStmts;
+    final int prepStmtCacheSize;
+    final int prepStmtCacheSqlLimit;
+    final int defaultFetchSize;
+    final boolean useCursorFetch;
+    final int connectTimeoutMillis;
+    final int socketTimeoutMillis;
+    final boolean useCompression;
+
+    /*
+     * Whether connections accept several statements in one request, which FetchStrategy.GRAPH needs.
+     * Off by default, because it applies to every statement sent on the pooled connections.
+     */
+    final boolean allowMultiQueries;
+
+    /*
+     * Whether project updates are checked against the project table's version column. Off by
+     * default, because the column has to be added first:
+     * ALTER TABLE project ADD COLUMN version INT NOT NULL DEFAULT 0;
+     */
+    final boolean optimisticLocking;
+
+    /* How often to check the properties file for changes. Zero turns the check off. */
+    final long reloadIntervalSeconds;
+
+    /* The properties file the settings were read from, or null. */
+    final Path configFile;
+
+    private DbConfig(Source source) {
+        host = source.get("projects.db.host", "localhost");
+        port = source.getInt("projects.db.port", 3306);
+        schema = source.get("projects.db.schema", "projects");
+        user = source.get("projects.db.user", "projects");
+        password = source.get("projects.db.password", "projects");
+
+        replicas = source.get("projects.db.replicas", "");
+        replicaSelection = source.get("projects.db.replicaSelection", "LEAST_OUTSTANDING");
+        readYourWritesMillis = source.getLong("projects.db.readYourWritesMillis", 5_000);
+
+        minPoolSize = source.getInt("projects.db.minPoolSize", 2);
+        maxPoolSize = source.getInt("projects.db.maxPoolSize", 10);
+        borrowTimeoutMillis = source.getLong("projects.db.borrowTimeoutMillis", 5_000);
+        idleTimeoutMillis = source.getLong("projects.db.idleTimeoutMillis", 10 * 60_000);
+        leakThresholdMillis = source.getLong("projects.db.leakThresholdMillis", 60_000);
+        statementCacheSize = source.getInt("projects.db.statementCacheSize", 64);
+
+        useServerPrepStmts = source.getBoolean("projects.db.useServerPrepStmts", true);
+        cachePrepStmts = source.getBoolean("projects.db.cachePrepStmts", true);
+        prepStmtCacheSize = source.getInt("projects.db.prepStmtCacheSize", 250);
+        prepStmtCacheSqlLimit = source.getInt("projects.db.prepStmtCacheSqlLimit", 2048);
+        defaultFetchSize = source.getInt("projects.db.defaultFetchSize", 0);
+        useCursorFetch = source.getBoolean("projects.db.useCursorFetch", false);
+        connectTimeoutMillis = source.getInt("projects.db.connectTimeoutMillis", 10_000);
+        socketTimeoutMillis = source.getInt("projects.db.socketTimeoutMillis", 0);
+        useCompression = source.getBoolean("projects.db.useCompression", false);
+
+        allowMultiQueries = source.getBoolean("projects.db.allowMultiQueries", false);
+        optimisticLocking = source.getBoolean("projects.db.optimisticLocking", false);
+
+        reloadIntervalSeconds = source.getLong("projects.db.reloadIntervalSeconds", 0);
+        configFile = source.path;
+    }
+
+    /**
+     * Reads the settings from the system properties, environment and properties file.
+     *
+     * @return The settings.
+     * @throws DbException Thrown if the properties file cannot be read or a setting is not valid.
+     */
+    static DbConfig load() {
+        return new DbConfig(new Source());
+    }
+
+    /**
+     * Builds the JDBC URL for the primary or a replica.
+     *
+     * <p>allowMultiQueries, when projects.db.allowMultiQueries is set, lets ProjectDao fetch a whole
+     * project graph in a single round trip. rewriteBatchedStatements turns JDBC batches into
+     * multi-row INSERT statements. The prepared
+     * statement settings make the server parse each distinct statement once per connection; the
+     * pool's own statement cache then avoids even the client-side lookup for the hot queries.
+     * useLocalSessionState stops the driver from sending auto-commit and read-only changes that would
+     * not change anything.
+     */
+    String jdbcUrl(String host, int port) {
+        return "jdbc:mysql://" + host + ":" + port + "/" + schema
+                + "?allowMultiQueries=" + allowMultiQueries
+                + "&rewriteBatchedStatements=true"
+                + "&useServerPrepStmts=" + useServerPrepStmts
+                + "&cachePrepStmts=" + cachePrepStmts
+                + "&prepStmtCacheSize=" + prepStmtCacheSize
+                + "&prepStmtCacheSqlLimit=" + prepStmtCacheSqlLimit
+                + "&defaultFetchSize=" + defaultFetchSize
+                + "&useCursorFetch=" + useCursorFetch
+                + "&connectTimeout=" + connectTimeoutMillis
+                + "&socketTimeout=" + socketTimeoutMillis
+                + "&useCompression=" + useCompression
+                + "&useLocalSessionState=true";
+    }
+
+    /**
+     * @return True if the other settings need new pools. Only the read-your-writes window, the
+     *         optimistic locking switch and the reload interval can change without replacing the
+     *         pools; a different replica list or
+     *         replica selection needs a new router, which is built with new pools.
+     */
+    boolean needsNewPools(DbConfig other) {
+        return !jdbcUrl(host, port).equals(other.jdbcUrl(other.host, other.port))
+                || !user.equals(other.user)
+                || !password.equals(other.password)
+                || !replicas.equals(other.replicas)
+                || !replicaSelection.equals(other.replicaSelection)
+                || minPoolSize != other.minPoolSize
+                || maxPoolSize != other.maxPoolSize
+                || borrowTimeoutMillis != other.borrowTimeoutMillis
+                || idleTimeoutMillis != other.idleTimeoutMillis
+                || leakThresholdMillis != other.leakThresholdMillis
+                || statementCacheSize != other.statementCacheSize;
+    }
+
+    @Override
+    public String toString() {
+        return user + "@" + host + ":" + port + "/" + schema + ", pool=" + minPoolSize + ".." + maxPoolSize
+                + (replicas.isBlank() ? "" : ", replicas=" + replicas);
+    }
+
+    /**
+     * Looks settings up in the system properties, then the environment, then the properties file.
+     */
+    private static class Source {
+        private final Map<String, String> env = System.getenv();
+        private final Properties file = new Properties();
+        private final Path path;
+
+        Source() {
+            String configured = System.getProperty(CONFIG_FILE_PROPERTY, env.get(envName(CONFIG_FILE_PROPERTY)));
+
+            try {
+                if (Objects.nonNull(configured)) {
+                    path = Path.of(configured);
+
+                    try (Reader reader = Files.newBufferedReader(path)) {
+                        file.load(reader);
+                    }
+                } else {
+                    path = null;
+
+                    try (InputStream in = DbConfig.class.getClassLoader().getResourceAsStream(CLASSPATH_CONFIG)) {
+                        if (Objects.nonNull(in)) {
+                            file.load(in);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                throw new DbException("Unable to read database configuration " + configured, e);
+            }
+        }
+
+        String get(String name, String defaultValue) {
+            String value = System.getProperty(name);
+
+            if (Objects.isNull(value)) {
+                value = env.get(envName(name));
+            }
+
+            if (Objects.isNull(value)) {
+                value = file.getProperty(name);
+            }
+
+            return Objects.isNull(value) ? defaultValue : value.trim();
+        }
+
+        int getInt(String name, int defaultValue) {
+            return (int) getLong(name, defaultValue);
+        }
+
+        long getLong(String name, long defaultValue) {
+            String value = get(name, null);
+
+            try {
+                return Objects.isNull(value) ? defaultValue : Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                throw new DbException("Invalid number for " + name + ": " + value, e);
+            }
+        }
+
+        boolean getBoolean(String name, boolean defaultValue) {
+            String value = get(name, null);
+            return Objects.isNull(value) ? defaultValue : Boolean.parseBoolean(value);
+        }
+
+        private static String envName(String name) {
+            return name.replace('.', '_').toUpperCase(Locale.ROOT);
+        }
+    }
+}
@@ -1,31 +1,407 @@
 package projects.dao;
 
 import projects.exception.DbException;
+import projects.metrics.Instrumentation;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class DbConnection {
-    private static String HOST = "localhost";
-    private static String PASSWORD = "projects";
-    private static int PORT = 3306;
-    private static String SCHEMA = "projects";
-    private static String USER = "projects";
+    /* Guards loading and replacing the configuration and pools. */
+    private static final Object LOCK = new Object();
 
+    /*
+     * The current settings, and the pools built from them. Both are loaded the first time they are
+     * needed and replaced by reload(). See DbConfig for where the settings come from.
+     */
+    private static volatile DbConfig config;
+    private static volatile Endpoints endpoints;
+    private static ScheduledExecutorService reloader;
+    /* The scheduled check of the properties file, or null. Guarded by LOCK. */
+    private static ScheduledFuture<?> configWatch;
+
+    /* When the current thread last committed a write, from System.nanoTime(). */
+    private static final ThreadLocal<Long> LAST_WRITE = new ThreadLocal<>();
+
+    /**
+     * The primary pool and the replica router built from one configuration.
+     */
+    private static class Endpoints {
+        private final DbConfig config;
+        private final ConnectionPool primary;
+        /* Null when no replicas are configured. */
+        private final ReplicaRouter router;
+
+        Endpoints(DbConfig config, ConnectionPool primary, ReplicaRouter router) {
+            this.config = config;
+            this.primary = primary;
+            this.router = router;
+        }
+
+        void close() {
+            primary.close();
+
+            if (router != null) {
+                router.close();
+            }
+        }
+    }
+
+    private static DbConfig config() {
+        DbConfig current = config;
+
+        if (current == null) {
+            synchronized (LOCK) {
+                if (config == null) {
+                    config = DbConfig.load();
+                }
+
+                current = config;
+            }
+        }
+
+        return current;
+    }
+
+    private static Endpoints endpoints() {
+        Endpoints current = endpoints;
+
+        if (current == null) {
+            synchronized (LOCK) {
+                if (endpoints == null) {
+                    endpoints = open(config());
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> endpoints.close(),
+                            "connection-pool-shutdown"));
+                    watchConfigFile(endpoints.config);
+                }
+
+                current = endpoints;
+            }
+        }
+
+        return current;
+    }
+
+    private static Endpoints open(DbConfig config) {
+        ConnectionPool primary = createPool(config, config.host, config.port);
+        List<ReplicaRouter.Replica> replicas = new ArrayList<>();
+
+        for (String endpoint : config.replicas.split(",")) {
+            endpoint = endpoint.trim();
+
+            if (!endpoint.isEmpty()) {
+                int colon = endpoint.lastIndexOf(':');
+                String host = colon < 0 ? endpoint : endpoint.substring(0, colon);
+                int port = colon < 0 ? config.port : Integer.parseInt(endpoint.substring(colon + 1));
+
+                replicas.add(new ReplicaRouter.Replica(host + ":" + port, createPool(config, host, port)));
+            }
+        }
+
+        ReplicaRouter router = replicas.isEmpty() ? null : new ReplicaRouter(replicas,
+                ReplicaRouter.Selection.valueOf(config.replicaSelection.toUpperCase(Locale.ROOT)));
+
+        return new Endpoints(config, primary, router);
+    }
+
+    private static ConnectionPool createPool(DbConfig config, String host, int port) {
+        return new ConnectionPool(config.jdbcUrl(host, port), config.user, config.password,
+                config.minPoolSize, config.maxPoolSize, config.borrowTimeoutMillis, config.idleTimeoutMillis,
+                config.leakThresholdMillis, config.statementCacheSize);
+    }
+
+    /*
+     * Reloads the configuration whenever the properties file's modification time changes. Called
+     * with LOCK held, and again by reload() when the file or the interval changes.
+     */
+    private static void watchConfigFile(DbConfig config) {
+        if (configWatch != null) {
+            configWatch.cancel(false);
+            configWatch = null;
+        }
+
+        if (config.configFile == null || config.reloadIntervalSeconds <= 0) {
+            return;
+        }
+
+        if (reloader == null) {
+            reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "db-config-reloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        FileTime[] lastModified = { modifiedTime(config) };
+
+        configWatch = reloader.scheduleWithFixedDelay(() -> {
+            FileTime modified = modifiedTime(config);
+
+            if (!Objects.equals(modified, lastModified[0])) {
+                lastModified[0] = modified;
+
+                try {
+                    Instrumentation.connectionEvents().configurationReloaded(reload());
+                } catch (RuntimeException e) {
+                    Instrumentation.connectionEvents().configurationReloadFailed(e);
+                }
+            }
+        }, config.reloadIntervalSeconds, config.reloadIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static FileTime modifiedTime(DbConfig config) {
+        try {
+            return Files.getLastModifiedTime(config.configFile);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the configuration again and applies it without restarting. If only
+     * projects.db.readYourWritesMillis, projects.db.optimisticLocking or
+     * projects.db.reloadIntervalSeconds changed, the pools are kept: the first two apply to the next
+     * read or update and the file check is rescheduled. Any other change,
+     * including to the replica list or replica selection, opens new pools that are used for every
+     * connection borrowed from now on, and the old pools are drained: their idle connections are
+     * closed straight away and connections still in use are closed as they are returned, so work in
+     * progress is not interrupted.
+     *
+     * <p>Reloads made by the file check are reported to the installed
+     * {@link projects.metrics.ConnectionEvents}, including ones that fail.
+     *
+     * @return True if new pools were opened. False if the pools were kept, or none had been opened
+     *         yet.
+     * @throws DbException Thrown if the configuration cannot be read. The current configuration stays
+     *         in effect.
+     */
+    public static boolean reload() {
+        synchronized (LOCK) {
+            DbConfig loaded = DbConfig.load();
+            Endpoints current = endpoints;
+            boolean newPools = false;
+
+            if (current != null) {
+                newPools = current.config.needsNewPools(loaded);
+
+                if (newPools) {
+                    endpoints = open(loaded);
+                    current.close();
+                } else {
+                    endpoints = new Endpoints(loaded, current.primary, current.router);
+                }
+
+                if (!Objects.equals(current.config.configFile, loaded.configFile)
+                        || current.config.reloadIntervalSeconds != loaded.reloadIntervalSeconds) {
+                    watchConfigFile(loaded);
+                }
+            }
+
+            config = loaded;
+            return newPools;
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool. Closing the connection, either directly, through
+     * {@link #closeConnection(Connection)} or with try-with-resources, returns it to the pool.
+     *
+     * @return A pooled connection.
+     */
     public static Connection getConnection() {
-        String uri = "jdbc:mysql://" + HOST + ":" + PORT + "/" + SCHEMA;
-        Connection connection = null;
+        return borrowPrimary(false);
+    }
+
+    /**
+     * Borrows a read-only connection. The server rejects writes on it, and InnoDB can skip the
+     * bookkeeping it does for transactions that might write.
+     *
+     * <p>When read replicas are configured the connection comes from one of them, unless this thread
+     * committed a write within the last projects.db.readYourWritesMillis, in which case it comes from
+     * the primary so the caller reads its own writes. The primary is also used when no replica is
+     * reachable. Writes are tracked per thread, so code that commits on one thread and reads on
+     * another must carry the write across with {@link #getLastWrite()} and
+     * {@link #inheritLastWrite(Long)}, as AsyncProjectService does; otherwise the other thread may
+     * briefly see the old data.
+     *
+     * @return A pooled, read-only connection.
+     */
+    public static Connection getReadOnlyConnection() {
+        Endpoints current = endpoints();
+
+        if (current.router != null && !readsOwnWrites(current.config)) {
+            Connection conn = current.router.borrow();
+
+            if (conn != null) {
+                return conn;
+            }
+        }
+
+        return borrowPrimary(true);
+    }
+
+    /**
+     * Borrows several read-only connections to the same server without waiting, for a task that
+     * runs queries on them concurrently. The connections are chosen the same way as
+     * {@link #getReadOnlyConnection()}, but all of them come from one replica or all from the
+     * primary, so they see the same replication position. Nothing is held if not all of them can be
+     * had at once.
+     *
+     * @param count The number of connections needed.
+     * @return The connections, or null if no server can supply that many without waiting.
+     */
+    public static List<Connection> tryGetReadOnlyConnections(int count) {
+        Endpoints current = endpoints();
+
+        if (current.router != null && !readsOwnWrites(current.config)) {
+            List<Connection> connections = current.router.tryBorrow(count);
+
+            if (connections != null) {
+                return connections;
+            }
+        }
+
+        try {
+            return current.primary.tryBorrow(count, true);
+        } catch (SQLException e) {
+            throw new DbException("Unable to Connect to the Database", e);
+        } catch (DbException e) {
+            /* The pool was replaced by a reload. */
+            if (current != endpoints) {
+                return tryGetReadOnlyConnections(count);
+            }
+
+            throw e;
+        }
+    }
+
+    private static Connection borrowPrimary(boolean readOnly) {
+        Endpoints current = endpoints();
 
         try {
-            connection = DriverManager.getConnection(uri, USER, PASSWORD);
-            System.out.println("Connected to database");
+            return current.primary.borrow(readOnly);
         } catch (SQLException e) {
             System.err.println(e.getMessage());
             System.err.println("Manual Message: Error Connecting to the Database");
             throw new DbException("Unable to Connect to the Database", e);
+        } catch (DbException e) {
+            /* The pool was replaced by a reload while this thread was waiting for a connection. */
+            if (current != endpoints) {
+                return borrowPrimary(readOnly);
+            }
+
+            throw e;
         }
-        return connection;
+    }
+
+    /**
+     * @return The most connections the pool will open at once. Callers that run database work
+     *         concurrently can use this to avoid queuing on the pool. This is read from the current
+     *         configuration, so callers that size themselves once do not follow later reloads.
+     */
+    public static int getMaxPoolSize() {
+        return config().maxPoolSize;
+    }
+
+    /**
+     * @return True if projects.db.allowMultiQueries is set, so connections accept several statements
+     *         in one request.
+     */
+    static boolean isMultiQueryEnabled() {
+        return config().allowMultiQueries;
+    }
+
+    /**
+     * @return True if projects.db.optimisticLocking is set, meaning the project table has a version
+     *         column that is read with each project and checked and incremented on each update.
+     */
+    static boolean isOptimisticLocking() {
+        return config().optimisticLocking;
+    }
+
+    /**
+     * @return How long after a write a read-only connection may still return the old data, which is
+     *         the read-your-writes window when read replicas are configured and zero otherwise.
+     *         Callers that keep what they read, such as caches, can use this to avoid keeping data
+     *         read from a replica that had not caught up.
+     */
+    public static long getReplicaLagWindowMillis() {
+        DbConfig current = config();
+        return current.replicas.isBlank() ? 0 : current.readYourWritesMillis;
+    }
+
+    /**
+     * Records that the current thread has just committed a write, so that its reads go to the
+     * primary for the read-your-writes window.
+     */
+    static void recordWrite() {
+        if (config().readYourWritesMillis > 0) {
+            LAST_WRITE.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * @return When this thread last committed a write, from System.nanoTime(), or null if it has not
+     *         committed one within the read-your-writes window. Pass it to
+     *         {@link #inheritLastWrite(Long)} on another thread that must read the write.
+     */
+    public static Long getLastWrite() {
+        return readsOwnWrites(config()) ? LAST_WRITE.get() : null;
+    }
+
+    /**
+     * Sends this thread's reads to the primary as though it had committed a write at the given time,
+     * for work handed over from the thread that did commit it. A write this thread made itself later
+     * than that is kept.
+     *
+     * @param lastWrite A value from {@link #getLastWrite()}, or null to change nothing.
+     */
+    public static void inheritLastWrite(Long lastWrite) {
+        Long own = LAST_WRITE.get();
+
+        if (lastWrite != null && (own == null || lastWrite - own > 0)) {
+            LAST_WRITE.set(lastWrite);
+        }
+    }
+
+    private static boolean readsOwnWrites(DbConfig config) {
+        Long lastWrite = LAST_WRITE.get();
+
+        if (lastWrite == null) {
+            return false;
+        }
+
+        if (System.nanoTime() - lastWrite < TimeUnit.MILLISECONDS.toNanos(config.readYourWritesMillis)) {
+            return true;
+        }
+
+        LAST_WRITE.remove();
+        return false;
+    }
+
+    public static PoolStats getPoolStats() {
+        return endpoints().primary.stats();
+    }
+
+    /**
+     * @return The pool counters of each read replica, keyed by host:port, or an empty map if no
+     *         replicas are configured.
+     */
+    public static Map<String, PoolStats> getReplicaPoolStats() {
+        Endpoints current = endpoints();
+        return current.router == null ? Map.of() : current.router.stats();
     }
 
     public static void closeConnection(Connection conn) {
@@ -39,4 +415,4 @@ public class DbConnection {
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package projects.dao;
+
+/**
+ * How {@link ProjectDao#fetchProjectById(Integer, FetchStrategy)} loads a project and its child
+ * rows.
+ *
+ * @author Promineo
+ *
+ */
+public enum FetchStrategy {
+    /**
+     * One query for the project followed by one query each for materials, steps and categories.
+     * That is four round trips to the database.
+     */
+    SEQUENTIAL,
+
+    /**
+     * The project and all of its child rows are requested in a single multi-statement round trip and
+     * the aggregate is assembled from the returned result sets in one pass. This needs
+     * projects.db.allowMultiQueries, which is off by default; without it the project is fetched with
+     * {@link #SEQUENTIAL}.
+     */
+    GRAPH,
+
+    /**
+     * The project, materials, steps and categories are queried at the same time on four pooled
+     * connections. Each connection reads from a consistent snapshot, and the snapshots are all
+     * opened before any query runs. This costs three extra connections but can cut the latency of
+     * projects with long material or step lists. The four connections are reserved together and
+     * always come from the same server, either one replica or the primary. When the pool cannot
+     * spare four at once, the project is fetched with {@link #GRAPH} instead of waiting.
+     */
+    PARALLEL
+}
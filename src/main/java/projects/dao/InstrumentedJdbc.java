@@ -0,0 +1,300 @@
+package projects.dao;
+
+import projects.metrics.DaoMetrics;
+import projects.metrics.StatementLog;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Wraps JDBC objects so that their use is reported to a {@link DaoMetrics} and a
+ * {@link StatementLog}. A wrapped connection returns wrapped statements, which time every execute
+ * call and return wrapped result sets, which count the rows read and estimate the size of the
+ * values read. Commits and rollbacks on the connection are counted too. Everything is attributed to
+ * the DAO operation the connection was borrowed for.
+ *
+ * <p>While the statement log is enabled, statements also capture their bound parameters and report
+ * each execution to the log when it is finished: when the statement is closed or executed again.
+ *
+ * <p>Wrapping is only done when metrics or the statement log are enabled; see
+ * {@link DaoBase#getConnection(String)}.
+ *
+ * @author Promineo
+ *
+ */
+final class InstrumentedJdbc {
+    private InstrumentedJdbc() {
+    }
+
+    static Connection connection(Connection conn, String operation, DaoMetrics metrics, StatementLog log) {
+        return proxy(Connection.class, new ConnectionHandler(conn, operation, metrics, log));
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /*
+     * JDBC does not expose how many bytes were received, so the size of each value is estimated from
+     * its Java representation. This is close to the MySQL wire size for the column types used here.
+     */
+    private static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        if (value instanceof String string) {
+            return string.length();
+        }
+
+        if (value instanceof BigDecimal decimal) {
+            return decimal.unscaledValue().bitLength() / 8 + 1;
+        }
+
+        if (value instanceof byte[] bytes) {
+            return bytes.length;
+        }
+
+        if (value instanceof Integer || value instanceof Float) {
+            return 4;
+        }
+
+        if (value instanceof Boolean || value instanceof Byte) {
+            return 1;
+        }
+
+        if (value instanceof Short) {
+            return 2;
+        }
+
+        return 8;
+    }
+
+    private static class ConnectionHandler implements InvocationHandler {
+        private final Connection conn;
+        private final String operation;
+        private final DaoMetrics metrics;
+        private final StatementLog log;
+
+        ConnectionHandler(Connection conn, String operation, DaoMetrics metrics, StatementLog log) {
+            this.conn = conn;
+            this.operation = operation;
+            this.metrics = metrics;
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedJdbc.invoke(conn, method, args);
+
+            switch (method.getName()) {
+                case "prepareStatement", "prepareCall", "createStatement" -> {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    return proxy(method.getReturnType().asSubclass(Statement.class),
+                            new StatementHandler((Statement) result, (Connection) proxy, sql, operation, metrics, log));
+                }
+                case "commit" -> metrics.recordCommit(operation);
+                case "rollback" -> {
+                    if (args == null) {
+                        metrics.recordRollback(operation);
+                    }
+                }
+                default -> {
+                }
+            }
+
+            return result;
+        }
+    }
+
+    private static class StatementHandler implements InvocationHandler {
+        private final Statement stmt;
+        private final Connection conn;
+        private final String sql;
+        private final String operation;
+        private final DaoMetrics metrics;
+        private final StatementLog log;
+
+        /* The following are only used while the statement log is enabled. */
+        private Object[] parameters = new Object[0];
+        private boolean executing;
+        private String executedSql;
+        private Object[] executedParameters;
+        private Instant startedAt;
+        private long startNanos;
+        private long rows;
+        private boolean sampled;
+
+        StatementHandler(Statement stmt, Connection conn, String sql, String operation, DaoMetrics metrics,
+                         StatementLog log) {
+            this.stmt = stmt;
+            this.conn = conn;
+            this.sql = sql;
+            this.operation = operation;
+            this.metrics = metrics;
+            this.log = log;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("getConnection")) {
+                return conn;
+            }
+
+            if (name.equals("close")) {
+                finishExecution();
+            } else if (log.isEnabled() && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer parameterIndex) {
+                captureParameter(parameterIndex, name.equals("setNull") ? null : args[1]);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[0];
+            }
+
+            Object result;
+
+            if (name.startsWith("execute")) {
+                finishExecution();
+
+                if (log.isEnabled()) {
+                    startExecution(args != null && args.length > 0 && args[0] instanceof String text ? text : sql);
+                }
+
+                long start = System.nanoTime();
+
+                try {
+                    result = InstrumentedJdbc.invoke(stmt, method, args);
+                } finally {
+                    metrics.recordStatement(operation, System.nanoTime() - start);
+                }
+
+                if (result instanceof Integer count) {
+                    addRows(count);
+                } else if (result instanceof Long count) {
+                    addRows(count);
+                } else if (result instanceof int[] counts) {
+                    for (int count : counts) {
+                        addRows(count);
+                    }
+                }
+            } else {
+                result = InstrumentedJdbc.invoke(stmt, method, args);
+            }
+
+            if (result instanceof ResultSet rs) {
+                /* Generated keys are not rows of the statement's result. */
+                StatementHandler owner = name.equals("getGeneratedKeys") ? null : this;
+                return proxy(ResultSet.class, new ResultSetHandler(rs, (Statement) proxy, owner, operation, metrics));
+            }
+
+            return result;
+        }
+
+        private void captureParameter(int parameterIndex, Object value) {
+            if (parameterIndex > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(parameterIndex, parameters.length * 2));
+            }
+
+            parameters[parameterIndex - 1] = value;
+        }
+
+        private void startExecution(String executed) {
+            executing = true;
+            executedSql = executed;
+            executedParameters = parameters.clone();
+            startedAt = Instant.now();
+            startNanos = System.nanoTime();
+            rows = 0;
+            sampled = log.shouldSample();
+        }
+
+        private void addRows(long count) {
+            if (count > 0) {
+                rows += count;
+            }
+        }
+
+        private void finishExecution() {
+            if (executing) {
+                executing = false;
+                log.record(startedAt, operation, executedSql, executedParameters, rows,
+                        System.nanoTime() - startNanos, sampled);
+            }
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private final ResultSet rs;
+        private final Statement stmt;
+        private final StatementHandler owner;
+        private final String operation;
+        private final DaoMetrics metrics;
+        private long rows;
+        private long bytes;
+        private boolean reported;
+
+        ResultSetHandler(ResultSet rs, Statement stmt, StatementHandler owner, String operation,
+                         DaoMetrics metrics) {
+            this.rs = rs;
+            this.stmt = stmt;
+            this.owner = owner;
+            this.operation = operation;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            if (name.equals("getStatement")) {
+                return stmt;
+            }
+
+            if (name.equals("close")) {
+                report();
+            }
+
+            Object result = InstrumentedJdbc.invoke(rs, method, args);
+
+            if (name.equals("next")) {
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else {
+                    report();
+                }
+            } else if (name.startsWith("get") && args != null && args.length > 0 && !name.equals("getMetaData")) {
+                bytes += estimateSize(result);
+            }
+
+            return result;
+        }
+
+        private void report() {
+            if (!reported) {
+                reported = true;
+                metrics.recordRows(operation, rows, bytes);
+
+                if (owner != null) {
+                    owner.addRows(rows);
+                }
+            }
+        }
+    }
+}
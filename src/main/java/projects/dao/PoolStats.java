@@ -0,0 +1,70 @@
+package projects.dao;
+
+/**
+ * A point-in-time copy of the connection pool counters, for monitoring.
+ *
+ * @author Promineo
+ *
+ */
+public class PoolStats {
+    private final int totalConnections;
+    private final int idleConnections;
+    private final long statementsPrepared;
+    private final long statementCacheHits;
+    private final long busyRefusals;
+    private final long leaksReported;
+
+    PoolStats(int totalConnections, int idleConnections, long statementsPrepared, long statementCacheHits,
+              long busyRefusals, long leaksReported) {
+        this.totalConnections = totalConnections;
+        this.idleConnections = idleConnections;
+        this.statementsPrepared = statementsPrepared;
+        this.statementCacheHits = statementCacheHits;
+        this.busyRefusals = busyRefusals;
+        this.leaksReported = leaksReported;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    /**
+     * @return The number of prepareStatement calls that reached the driver since the pool started.
+     */
+    public long getStatementsPrepared() {
+        return statementsPrepared;
+    }
+
+    /**
+     * @return The number of prepareStatement calls served from the statement cache.
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     * @return The number of times connections were asked for without waiting and the pool had too
+     *         few free. For a replica pool, each is a read sent elsewhere because the replica was busy.
+     */
+    public long getBusyRefusals() {
+        return busyRefusals;
+    }
+
+    /**
+     * @return The number of connections found held past the leak threshold since the pool started.
+     */
+    public long getLeaksReported() {
+        return leaksReported;
+    }
+
+    @Override
+    public String toString() {
+        return "total=" + totalConnections + ", idle=" + idleConnections
+                + ", statementsPrepared=" + statementsPrepared + ", statementCacheHits=" + statementCacheHits
+                + ", busyRefusals=" + busyRefusals + ", leaksReported=" + leaksReported;
+    }
+}
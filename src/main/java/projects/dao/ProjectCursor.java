@@ -0,0 +1,34 @@
+package projects.dao;
+
+import java.util.Objects;
+
+/**
+ * The position of a project in the (project_name, project_id) ordering used by
+ * {@link ProjectDao#fetchProjectsPage(ProjectCursor, int)}. A page request returns the projects that
+ * sort after the cursor.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectCursor {
+    private final String projectName;
+    private final Integer projectId;
+
+    public ProjectCursor(String projectName, Integer projectId) {
+        this.projectName = Objects.requireNonNull(projectName, "projectName");
+        this.projectId = Objects.requireNonNull(projectId, "projectId");
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    @Override
+    public String toString() {
+        return "projectName=" + projectName + ", projectId=" + projectId;
+    }
+}
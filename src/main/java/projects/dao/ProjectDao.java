@@ -1,26 +1,57 @@
 package projects.dao;
 
 import projects.entity.Category;
+import projects.entity.CompactMaterial;
+import projects.entity.CompactProject;
+import projects.entity.CompactStep;
 import projects.entity.Material;
 import projects.entity.Project;
 import projects.entity.Step;
 import projects.exception.DbException;
+import projects.exception.ProjectConflictException;
 
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ProjectDao extends DaoBase {
-    @SuppressWarnings("unused")
     private static final String CATEGORY_TABLE = "category";
     private static final String MATERIAL_TABLE = "material";
     private static final String PROJECT_TABLE = "project";
     private static final String PROJECT_CATEGORY_TABLE = "project_category";
     private static final String STEP_TABLE = "step";
 
+    /* The most IDs bound into a single IN clause. Larger requests are split into chunks of this size. */
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private static final int DEFAULT_INSERT_BATCH_SIZE = 500;
+    private static final int DEFAULT_DELETE_BATCH_SIZE = 500;
+
+    /*
+     * Steps are numbered in multiples of this gap, so a step can be inserted or moved between two
+     * others by giving it the order halfway between theirs, without renumbering any other step.
+     */
+    private static final int STEP_ORDER_GAP = 1024;
+
+    /* Shared by all DAO instances, so the catalog is loaded once per process. */
+    private static final CategoryCatalog CATEGORY_CATALOG = new CategoryCatalog();
+
+    /* Runs the child queries of FetchStrategy.PARALLEL. */
+    private static final ExecutorService CHILD_LOADER = Executors.newVirtualThreadPerTaskExecutor();
+
     public Project insertProject(Project project) {
         // Changed getName() to getProjectName()
         System.out.println("ProjectDao: Inserting project " + project.getProjectName());
@@ -29,9 +60,9 @@ public class ProjectDao extends DaoBase {
                 + "(project_name, estimated_hours, actual_hours, difficulty, notes) "
                 + "VALUES "
                 + "(?, ?, ?, ?, ?)";
-        try (Connection conn = DbConnection.getConnection()) {
+        try (Connection conn = getConnection("insertProject")) {
             startTransaction(conn);
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
                 setParameter(stmt, 1, project.getProjectName(), String.class);
                 setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
                 setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
@@ -40,10 +71,12 @@ public class ProjectDao extends DaoBase {
 
                 stmt.executeUpdate();
 
-                Integer projectId = getLastInsertId(conn, PROJECT_TABLE);
+                Integer projectId = getGeneratedId(stmt);
                 commitTransaction(conn);
 
                 project.setProjectId(projectId);
+                project.setVersion(initialVersion());
+                project.clearModified();
                 return project;
             } catch (Exception e) {
                 rollbackTransaction(conn);
@@ -54,32 +87,359 @@ public class ProjectDao extends DaoBase {
         }
     }
 
+    public BatchInsertResult insertProjects(List<Project> projects) {
+        return insertProjects(projects, DEFAULT_INSERT_BATCH_SIZE);
+    }
+
+    /**
+     * Inserts many projects, together with their materials, steps and category links, using JDBC
+     * batches. Each group of batchSize projects is written in one transaction: one batch per table,
+     * which the driver rewrites into multi-row INSERT statements (rewriteBatchedStatements). The
+     * generated keys are copied back into the projects, materials and steps.
+     *
+     * <p>If a group fails, its transaction is rolled back, its projects are reported as failures in
+     * the result and the following groups are still inserted.
+     *
+     * @param projects The projects to insert. Categories are linked by their existing category ID.
+     * @param batchSize The number of projects written per transaction.
+     * @return The inserted projects and the failures.
+     */
+    public BatchInsertResult insertProjects(List<Project> projects, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
+        }
+
+        BatchInsertResult result = new BatchInsertResult();
+
+        try (Connection conn = getConnection("insertProjects")) {
+            int offset = 0;
+
+            for (List<Project> batch : chunk(projects, batchSize)) {
+                startTransaction(conn);
+
+                try {
+                    insertProjectBatch(conn, batch);
+                    commitTransaction(conn);
+                    batch.forEach(Project::clearModified);
+                    result.addInserted(batch);
+                } catch (Exception e) {
+                    rollbackTransaction(conn);
+                    DbException cause = new DbException("Unable to insert batch of projects starting at index "
+                            + offset, e);
+
+                    for (int i = 0; i < batch.size(); i++) {
+                        clearGeneratedIds(batch.get(i));
+                        result.addFailure(offset + i, cause);
+                    }
+                }
+
+                offset += batch.size();
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        return result;
+    }
+
+    private void insertProjectBatch(Connection conn, List<Project> projects) throws SQLException {
+        String projectSql = ""
+                + "INSERT INTO " + PROJECT_TABLE + " "
+                + "(project_name, estimated_hours, actual_hours, difficulty, notes) "
+                + "VALUES "
+                + "(?, ?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(projectSql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Project project : projects) {
+                setParameter(stmt, 1, project.getProjectName(), String.class);
+                setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
+                setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
+                setParameter(stmt, 4, project.getDifficulty(), Integer.class);
+                setParameter(stmt, 5, project.getNotes(), String.class);
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+            List<Integer> ids = getGeneratedIds(stmt);
+
+            for (int i = 0; i < projects.size(); i++) {
+                projects.get(i).setProjectId(ids.get(i));
+                projects.get(i).setVersion(initialVersion());
+            }
+        }
+
+        List<Material> materials = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+
+        for (Project project : projects) {
+            for (Material material : project.getMaterials()) {
+                material.setProjectId(project.getProjectId());
+                materials.add(material);
+            }
+
+            int stepOrder = STEP_ORDER_GAP;
+
+            for (Step step : project.getSteps()) {
+                step.setProjectId(project.getProjectId());
+
+                if (Objects.isNull(step.getStepOrder())) {
+                    step.setStepOrder(stepOrder);
+                }
+
+                stepOrder = step.getStepOrder() + STEP_ORDER_GAP;
+                steps.add(step);
+            }
+        }
+
+        insertMaterials(conn, materials);
+        insertSteps(conn, steps);
+
+        String categorySql = ""
+                + "INSERT INTO " + PROJECT_CATEGORY_TABLE + " "
+                + "(project_id, category_id) "
+                + "VALUES "
+                + "(?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(categorySql)) {
+            boolean batched = false;
+
+            for (Project project : projects) {
+                for (Category category : project.getCategories()) {
+                    setParameter(stmt, 1, project.getProjectId(), Integer.class);
+                    setParameter(stmt, 2, category.getCategoryId(), Integer.class);
+                    stmt.addBatch();
+                    batched = true;
+                }
+            }
+
+            if (batched) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /* Inserts the materials in one batch and sets their generated IDs. */
+    private void insertMaterials(Connection conn, List<Material> materials) throws SQLException {
+        if (materials.isEmpty()) {
+            return;
+        }
+
+        String sql = ""
+                + "INSERT INTO " + MATERIAL_TABLE + " "
+                + "(project_id, material_name, num_required, cost) "
+                + "VALUES "
+                + "(?, ?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Material material : materials) {
+                setParameter(stmt, 1, material.getProjectId(), Integer.class);
+                setParameter(stmt, 2, material.getMaterialName(), String.class);
+                setParameter(stmt, 3, material.getNumRequired(), Integer.class);
+                setParameter(stmt, 4, material.getCost(), BigDecimal.class);
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+            List<Integer> ids = getGeneratedIds(stmt);
+
+            for (int i = 0; i < materials.size(); i++) {
+                materials.get(i).setMaterialId(ids.get(i));
+            }
+        }
+    }
+
+    /* Inserts the steps, which must have their step order set, in one batch and sets their generated IDs. */
+    private void insertSteps(Connection conn, List<Step> steps) throws SQLException {
+        if (steps.isEmpty()) {
+            return;
+        }
+
+        String sql = ""
+                + "INSERT INTO " + STEP_TABLE + " "
+                + "(project_id, step_text, step_order) "
+                + "VALUES "
+                + "(?, ?, ?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (Step step : steps) {
+                setParameter(stmt, 1, step.getProjectId(), Integer.class);
+                setParameter(stmt, 2, step.getStepText(), String.class);
+                setParameter(stmt, 3, step.getStepOrder(), Integer.class);
+                stmt.addBatch();
+            }
+
+            stmt.executeBatch();
+            List<Integer> ids = getGeneratedIds(stmt);
+
+            for (int i = 0; i < steps.size(); i++) {
+                steps.get(i).setStepId(ids.get(i));
+            }
+        }
+    }
+
+    /* Undoes the IDs assigned during a batch whose transaction was rolled back. */
+    private void clearGeneratedIds(Project project) {
+        project.setProjectId(null);
+        project.setVersion(null);
+        project.getMaterials().forEach(material -> material.setMaterialId(null));
+        project.getSteps().forEach(step -> step.setStepId(null));
+    }
+
     public List<Project> fetchAllProjects() {
         String sql = "SELECT * FROM project ORDER BY project_name ASC";
 
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+        try (Connection conn = getReadOnlyConnection("fetchAllProjects");
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            List<Project> projects = new ArrayList<>();
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                try (ResultSet rs = stmt.executeQuery()) {
-                    List<Project> projects = new ArrayList<>();
+            while (rs.next()) {
+                projects.add(extractProject(rs));
+            }
 
-                    while (rs.next()) {
-                        projects.add(extractProject(rs));
-                    }
+            return projects;
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
 
-                    commitTransaction(conn);
-                    return projects;
+    /**
+     * Fetches one page of projects ordered by name, using the (project_name, project_id) of the last
+     * project on the previous page as the starting point. Unlike an OFFSET, the cost of a page does not
+     * grow with how far into the table it is.
+     *
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param pageSize The maximum number of projects on the page.
+     * @return The page, with the cursor for the next page if there is one.
+     */
+    public ProjectPage fetchProjectsPage(ProjectCursor after, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1: " + pageSize);
+        }
+
+        String sql = ""
+                + "SELECT * FROM " + PROJECT_TABLE + " "
+                + (Objects.isNull(after) ? "" : "WHERE project_name > ? OR (project_name = ? AND project_id > ?) ")
+                + "ORDER BY project_name ASC, project_id ASC "
+                + "LIMIT ?";
+
+        try (Connection conn = getReadOnlyConnection("fetchProjectsPage");
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int parameterIndex = 1;
+
+            if (Objects.nonNull(after)) {
+                setParameter(stmt, parameterIndex++, after.getProjectName(), String.class);
+                setParameter(stmt, parameterIndex++, after.getProjectName(), String.class);
+                setParameter(stmt, parameterIndex++, after.getProjectId(), Integer.class);
+            }
+
+            /* Read one extra row to find out whether there is another page. */
+            setParameter(stmt, parameterIndex, pageSize + 1, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Project> projects = new ArrayList<>(pageSize + 1);
+
+                while (rs.next()) {
+                    projects.add(extractProject(rs));
                 }
-            } catch (Exception e) {
-                rollbackTransaction(conn);
-                throw new DbException(e);
+
+                ProjectCursor nextCursor = null;
+
+                if (projects.size() > pageSize) {
+                    projects.remove(pageSize);
+                    Project last = projects.get(pageSize - 1);
+                    nextCursor = new ProjectCursor(last.getProjectName(), last.getProjectId());
+                }
+
+                return new ProjectPage(projects, nextCursor);
             }
         } catch (SQLException e) {
             throw new DbException(e);
         }
     }
 
+    /**
+     * Passes every project, ordered by name, to the consumer. Rows are streamed from the server one
+     * at a time, so memory use does not depend on the size of the table. The consumer must not use
+     * the database through this DAO's connection while the stream is open.
+     *
+     * @param consumer Receives each project in turn.
+     */
+    public void streamAllProjects(Consumer<Project> consumer) {
+        try (Stream<Project> projects = streamAllProjects()) {
+            projects.forEach(consumer);
+        }
+    }
+
+    /**
+     * Returns a lazily-populated stream of every project, ordered by name. Rows are read from the
+     * server as the stream is consumed. The stream holds a pooled connection until it is closed, so
+     * it must be used in a try-with-resources block.
+     *
+     * @return A stream of projects that must be closed.
+     */
+    public Stream<Project> streamAllProjects() {
+        String sql = "SELECT * FROM " + PROJECT_TABLE + " ORDER BY project_name ASC, project_id ASC";
+        Connection conn = getReadOnlyConnection("streamAllProjects");
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+
+            /* Integer.MIN_VALUE tells Connector/J to stream rows instead of buffering the result set. */
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            rs = stmt.executeQuery();
+            return projectStream(conn, stmt, rs);
+        } catch (SQLException | RuntimeException e) {
+            closeQuietly(rs, stmt, conn);
+            throw e instanceof DbException dbException ? dbException : new DbException(e);
+        }
+    }
+
+    private Stream<Project> projectStream(Connection conn, PreparedStatement stmt, ResultSet rs) {
+        Spliterator<Project> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Project> action) {
+                try {
+                    if (!rs.next()) {
+                        return false;
+                    }
+
+                    action.accept(extractProject(rs));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DbException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try (conn; stmt; rs) {
+                /* Closing in reverse order of opening. */
+            } catch (SQLException e) {
+                throw new DbException(e);
+            }
+        });
+    }
+
+    /*
+     * Closes whatever was opened before a failure, most recent first. Nulls are skipped, and errors
+     * while closing are dropped so the original failure is the one reported.
+     */
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (Objects.nonNull(resource)) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    /* The caller is already failing with the original exception. */
+                }
+            }
+        }
+    }
+
     private Project extractProject(ResultSet rs) throws SQLException {
         Project project = new Project();
 
@@ -90,14 +450,44 @@ public class ProjectDao extends DaoBase {
         project.setDifficulty(rs.getInt("difficulty"));
         project.setNotes(rs.getString("notes"));
 
+        if (DbConnection.isOptimisticLocking()) {
+            project.setVersion(rs.getInt("version"));
+        }
+
+        project.clearModified();
+
         return project;
     }
 
+    /* The version of a newly inserted project, or null when versions are not in use. */
+    private Integer initialVersion() {
+        return DbConnection.isOptimisticLocking() ? 0 : null;
+    }
+
+    /* The version column for a select list, or a constant 0 when versions are not in use. */
+    private String versionColumn() {
+        return DbConnection.isOptimisticLocking() ? "version" : "0 AS version";
+    }
+
     public Optional<Project> fetchProjectById(Integer projectId) {
+        return fetchProjectById(projectId, FetchStrategy.GRAPH);
+    }
+
+    public Optional<Project> fetchProjectById(Integer projectId, FetchStrategy strategy) {
+        return switch (strategy) {
+            case SEQUENTIAL -> fetchProjectSequentially(projectId);
+            case GRAPH -> DbConnection.isMultiQueryEnabled()
+                    ? fetchProjectGraph(projectId)
+                    : fetchProjectSequentially(projectId);
+            case PARALLEL -> fetchProjectInParallel(projectId);
+        };
+    }
+
+    private Optional<Project> fetchProjectSequentially(Integer projectId) {
         String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
 
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+        try (Connection conn = getReadOnlyConnection("fetchProjectById")) {
+            startReadOnlyTransaction(conn);
 
             try {
                 Project project = null;
@@ -118,11 +508,11 @@ public class ProjectDao extends DaoBase {
                     project.getCategories().addAll(fetchCategoriesForProject(conn, projectId));
                 }
 
-                commitTransaction(conn);
+                endReadOnlyTransaction(conn);
 
                 return Optional.ofNullable(project);
             } catch (Exception e) {
-                rollbackTransaction(conn);
+                endReadOnlyTransaction(conn, e);
                 throw new DbException(e);
             }
         } catch (SQLException e) {
@@ -130,136 +520,1505 @@ public class ProjectDao extends DaoBase {
         }
     }
 
-    private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
+    /**
+     * Fetches a project together with its materials, steps and categories in one round trip. The four
+     * SELECT statements are sent as a single multi-statement request, which needs
+     * projects.db.allowMultiQueries, and the result sets are read back in order. The request opens
+     * and commits its own read-only transaction so that the four queries see the same data without
+     * any extra round trips.
+     */
+    private Optional<Project> fetchProjectGraph(Integer projectId) {
         String sql = ""
-                + "SELECT m.* FROM " + MATERIAL_TABLE + " m "
-                + "JOIN " + PROJECT_TABLE + " p USING (project_id) "
-                + "WHERE project_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            setParameter(stmt, 1, projectId, Integer.class);
+                + "START TRANSACTION READ ONLY; "
+                + "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?; "
+                + "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id = ?; "
+                + "SELECT * FROM " + STEP_TABLE + " WHERE project_id = ? ORDER BY step_order; "
+                + "SELECT category_id FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id = ?; "
+                + "COMMIT";
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                List<Material> materials = new LinkedList<>();
+        try (Connection conn = getReadOnlyConnection("fetchProjectById")) {
+            Project project = null;
+            List<Integer> categoryIds = new ArrayList<>();
 
-                while (rs.next()) {
-                    materials.add(extract(rs, Material.class));
+            setTransactionOpen(conn, true);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                for (int parameterIndex = 1; parameterIndex <= 4; parameterIndex++) {
+                    setParameter(stmt, parameterIndex, projectId, Integer.class);
                 }
-                return materials;
-            }
-        }
-    }
 
-    private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
-        String sql = ""
-                + "SELECT c.* FROM " + CATEGORY_TABLE + " c "
-                + "JOIN " + PROJECT_CATEGORY_TABLE + " pc USING (category_id) "
-                + "WHERE project_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            setParameter(stmt, 1, projectId, Integer.class);
+                nextResultSet(stmt, stmt.execute(), Project.class);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                List<Category> categories = new LinkedList<>();
+                try (ResultSet rs = stmt.getResultSet()) {
+                    if (rs.next()) {
+                        project = extractProject(rs);
+                    }
+                }
 
-                while (rs.next()) {
-                    categories.add(extract(rs, Category.class));
+                if (Objects.nonNull(project)) {
+                    readChildren(stmt, Material.class, project.getMaterials());
+                    readChildren(stmt, Step.class, project.getSteps());
+                    readCategoryIds(stmt, categoryIds);
                 }
-                return categories;
+            } catch (Exception e) {
+                /* A failed statement stops the request before its COMMIT. */
+                endReadOnlyTransaction(conn, e);
+                throw new DbException(e);
+            }
+
+            /* Closing the statement read the rest of the request, including its COMMIT. */
+            setTransactionOpen(conn, false);
+
+            /* The statement is closed, so the connection is free in case the catalog needs loading. */
+            if (Objects.nonNull(project)) {
+                project.getCategories().addAll(CATEGORY_CATALOG.resolve(conn, categoryIds));
             }
+
+            return Optional.ofNullable(project);
+        } catch (SQLException e) {
+            throw new DbException(e);
         }
     }
 
-    private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
-        String sql = ""
-                + "SELECT s.* FROM " + STEP_TABLE + " s "
-                + "JOIN " + PROJECT_TABLE + " p USING (project_id) "
-                + "WHERE project_id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            setParameter(stmt, 1, projectId, Integer.class);
+    /**
+     * Fetches a project while its materials, steps and categories are loaded concurrently on their own
+     * connections. Each connection opens a consistent snapshot before any of them queries, so all four
+     * reads see the database as of (very nearly) the same moment. MySQL cannot share one read view
+     * between sessions, so a write that commits while the snapshots are being opened may be visible to
+     * some of the queries and not others.
+     *
+     * <p>Consistent snapshots require the REPEATABLE READ isolation level, which is the InnoDB default.
+     */
+    /*
+     * The four connections are reserved together, so concurrent callers cannot each hold some of
+     * them while waiting for the rest. When the pool cannot spare four right now the project is
+     * fetched with GRAPH on one connection instead of waiting.
+     */
+    private Optional<Project> fetchProjectInParallel(Integer projectId) {
+        String sql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+        List<Connection> connections = tryGetReadOnlyConnections("fetchProjectById", 4);
 
-            try (ResultSet rs = stmt.executeQuery()) {
-                List<Step> steps = new LinkedList<>();
+        if (Objects.isNull(connections)) {
+            return fetchProjectById(projectId, FetchStrategy.GRAPH);
+        }
 
-                while (rs.next()) {
-                    steps.add(extract(rs, Step.class));
+        try (Connection conn = connections.get(0);
+             Connection materialConn = connections.get(1);
+             Connection stepConn = connections.get(2);
+             Connection categoryConn = connections.get(3)) {
+            List<Future<?>> pending = new ArrayList<>();
+
+            try {
+                for (Connection snapshotConn : connections) {
+                    startSnapshot(snapshotConn);
                 }
-                return steps;
-            }
-        }
-    }
 
-    public boolean modifyProjectDetails(Project project) {
-        String sql = ""
-                + "UPDATE " + PROJECT_TABLE + " SET "
-                + "project_name = ?, "
-                + "estimated_hours = ?, "
-                + "actual_hours = ?, "
-                + "difficulty = ?, "
-                + "notes = ? "
-                + "WHERE project_id = ?";
+                Future<List<Material>> materials =
+                        CHILD_LOADER.submit(() -> fetchMaterialsForProject(materialConn, projectId));
+                Future<List<Step>> steps =
+                        CHILD_LOADER.submit(() -> fetchStepsForProject(stepConn, projectId));
+                Future<List<Category>> categories =
+                        CHILD_LOADER.submit(() -> fetchCategoriesForProject(categoryConn, projectId));
+                pending.addAll(List.of(materials, steps, categories));
 
-        boolean modified = false;
+                Project project = null;
 
-        try (Connection conn = DbConnection.getConnection()) {
-            startTransaction(conn);
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    setParameter(stmt, 1, projectId, Integer.class);
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                setParameter(stmt, 1, project.getProjectName(), String.class);
-                setParameter(stmt, 2, project.getEstimatedHours(), BigDecimal.class);
-                setParameter(stmt, 3, project.getActualHours(), BigDecimal.class);
-                setParameter(stmt, 4, project.getDifficulty(), Integer.class);
-                setParameter(stmt, 5, project.getNotes(), String.class);
-                setParameter(stmt, 6, project.getProjectId(), Integer.class);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            project = extractProject(rs);
+                        }
+                    }
+                }
 
-                int rowsAffected = stmt.executeUpdate();
-                modified = rowsAffected == 1;
+                List<Material> projectMaterials = awaitChildren(materials);
+                List<Step> projectSteps = awaitChildren(steps);
+                List<Category> projectCategories = awaitChildren(categories);
 
-                commitTransaction(conn);
+                if (Objects.nonNull(project)) {
+                    project.getMaterials().addAll(projectMaterials);
+                    project.getSteps().addAll(projectSteps);
+                    project.getCategories().addAll(projectCategories);
+                }
+
+                for (Connection snapshotConn : connections) {
+                    endReadOnlyTransaction(snapshotConn);
+                }
+
+                return Optional.ofNullable(project);
             } catch (Exception e) {
-                rollbackTransaction(conn);
+                /*
+                 * The child connections must not go back to the pool while a query is still using
+                 * them, so this waits even if the thread is interrupted, and restores the interrupt
+                 * afterwards.
+                 */
+                boolean interrupted = Thread.interrupted();
+
+                for (Future<?> child : pending) {
+                    while (true) {
+                        try {
+                            child.get();
+                            break;
+                        } catch (InterruptedException again) {
+                            interrupted = true;
+                        } catch (ExecutionException | CancellationException ignored) {
+                            /* The original exception is the one reported. */
+                            break;
+                        }
+                    }
+                }
+
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+
+                for (Connection snapshotConn : connections) {
+                    endReadOnlyTransaction(snapshotConn, e);
+                }
                 throw new DbException(e);
             }
         } catch (SQLException e) {
             throw new DbException(e);
         }
-
-        return modified;
     }
 
-    public boolean deleteProject(Integer projectId) {
-        String sql = "DELETE FROM project WHERE project_id = ?";
-        Connection conn = null;
+    private void startSnapshot(Connection conn) throws SQLException {
+        setTransactionOpen(conn, true);
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+        }
+    }
 
+    private <T> List<T> awaitChildren(Future<List<T>> children) throws SQLException {
         try {
-            conn = DbConnection.getConnection();
-            conn.setAutoCommit(false);  // Start transaction
+            return children.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DbException("Interrupted while loading project children", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlException) {
+                throw sqlException;
+            }
 
-            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                stmt.setInt(1, projectId);  // Set project ID parameter
+            throw new DbException(e.getCause());
+        }
+    }
 
-                int rowsAffected = stmt.executeUpdate();
+    /*
+     * Skips the update counts of a multi-statement request, such as the one for START TRANSACTION,
+     * until the current result is a result set.
+     */
+    private void nextResultSet(Statement stmt, boolean isResultSet, Class<?> expected) throws SQLException {
+        while (!isResultSet) {
+            if (stmt.getUpdateCount() == -1) {
+                throw new SQLException("Expected a result set of " + expected.getSimpleName() + " rows");
+            }
 
-                if (rowsAffected == 1) {
-                    conn.commit();  // Commit transaction
-                    return true;
-                } else {
-                    conn.rollback();  // Rollback if no rows affected
-                    return false;
+            isResultSet = stmt.getMoreResults();
+        }
+    }
+
+    /* Moves to the next result set of a multi-statement request and reads the category ID of every row. */
+    private void readCategoryIds(PreparedStatement stmt, List<Integer> categoryIds) throws SQLException {
+        nextResultSet(stmt, stmt.getMoreResults(), Category.class);
+
+        try (ResultSet rs = stmt.getResultSet()) {
+            while (rs.next()) {
+                categoryIds.add(rs.getInt(1));
+            }
+        }
+    }
+
+    /* Moves to the next result set of a multi-statement request and maps every row into children. */
+    private <T> void readChildren(PreparedStatement stmt, Class<T> classType, List<T> children)
+            throws SQLException {
+        nextResultSet(stmt, stmt.getMoreResults(), classType);
+
+        try (ResultSet rs = stmt.getResultSet()) {
+            RowMapper<T> mapper = rowMapper(rs, classType);
+
+            while (rs.next()) {
+                children.add(mapper.map(rs));
+            }
+        }
+    }
+
+    /**
+     * Fetches complete projects, including materials, steps and categories, for all the given IDs.
+     * Each chunk of up to {@value #IN_CLAUSE_CHUNK_SIZE} IDs costs four queries regardless of how many
+     * projects it contains, and all chunks share one connection. Child rows are attached to their
+     * projects through a map keyed by project ID.
+     *
+     * @param projectIds The IDs to fetch. Duplicates are ignored.
+     * @return The projects that exist, in the order their IDs were given.
+     */
+    public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Integer, Project> projectsById = new HashMap<>(ids.size() * 4 / 3 + 1);
+
+        try (Connection conn = getReadOnlyConnection("fetchProjectsByIds")) {
+            startReadOnlyTransaction(conn);
+
+            try {
+                for (List<Integer> chunk : chunk(ids, IN_CLAUSE_CHUNK_SIZE)) {
+                    fetchProjectChunk(conn, chunk, projectsById);
                 }
-            } catch (SQLException e) {
-                conn.rollback();  // Rollback on exception
+
+                endReadOnlyTransaction(conn);
+            } catch (Exception e) {
+                endReadOnlyTransaction(conn, e);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        List<Project> projects = new ArrayList<>(projectsById.size());
+
+        for (Integer projectId : ids) {
+            Project project = projectsById.get(projectId);
+
+            if (Objects.nonNull(project)) {
+                projects.add(project);
+            }
+        }
+
+        return projects;
+    }
+
+    private void fetchProjectChunk(Connection conn, List<Integer> projectIds,
+                                   Map<Integer, Project> projectsById) throws SQLException {
+        String in = "(" + placeholders(projectIds.size()) + ")";
+
+        String projectSql = "SELECT * FROM " + PROJECT_TABLE + " WHERE project_id IN " + in;
+        int found = 0;
+
+        try (PreparedStatement stmt = conn.prepareStatement(projectSql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    Project project = extractProject(rs);
+                    projectsById.put(project.getProjectId(), project);
+                    found++;
+                }
+            }
+        }
+
+        if (found == 0) {
+            return;
+        }
+
+        String materialSql = "SELECT * FROM " + MATERIAL_TABLE + " WHERE project_id IN " + in;
+
+        try (PreparedStatement stmt = conn.prepareStatement(materialSql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<Material> mapper = rowMapper(rs, Material.class);
+
+                while (rs.next()) {
+                    Material material = mapper.map(rs);
+                    projectsById.get(material.getProjectId()).getMaterials().add(material);
+                }
+            }
+        }
+
+        String stepSql = ""
+                + "SELECT * FROM " + STEP_TABLE + " WHERE project_id IN " + in + " "
+                + "ORDER BY project_id, step_order";
+
+        try (PreparedStatement stmt = conn.prepareStatement(stepSql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<Step> mapper = rowMapper(rs, Step.class);
+
+                while (rs.next()) {
+                    Step step = mapper.map(rs);
+                    projectsById.get(step.getProjectId()).getSteps().add(step);
+                }
+            }
+        }
+
+        String categorySql = ""
+                + "SELECT project_id, category_id FROM " + PROJECT_CATEGORY_TABLE + " "
+                + "WHERE project_id IN " + in;
+
+        List<Integer> linkProjectIds = new ArrayList<>();
+        List<Integer> linkCategoryIds = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(categorySql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    linkProjectIds.add(rs.getInt(1));
+                    linkCategoryIds.add(rs.getInt(2));
+                }
+            }
+        }
+
+        Map<Integer, Category> categories = CATEGORY_CATALOG.categories(conn, linkCategoryIds);
+
+        for (int i = 0; i < linkProjectIds.size(); i++) {
+            Category category = categories.get(linkCategoryIds.get(i));
+
+            if (Objects.nonNull(category)) {
+                projectsById.get(linkProjectIds.get(i)).getCategories().add(CategoryCatalog.copyOf(category));
+            }
+        }
+    }
+
+    private List<Material> fetchMaterialsForProject(Connection conn, Integer projectId) throws SQLException {
+        String sql = ""
+                + "SELECT * FROM " + MATERIAL_TABLE + " "
+                + "WHERE project_id = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<Material> mapper = rowMapper(rs, Material.class);
+                List<Material> materials = new LinkedList<>();
+
+                while (rs.next()) {
+                    materials.add(mapper.map(rs));
+                }
+                return materials;
+            }
+        }
+    }
+
+    private List<Category> fetchCategoriesForProject(Connection conn, Integer projectId) throws SQLException {
+        String sql = ""
+                + "SELECT category_id FROM " + PROJECT_CATEGORY_TABLE + " "
+                + "WHERE project_id = ?";
+        List<Integer> categoryIds = new ArrayList<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    categoryIds.add(rs.getInt(1));
+                }
+            }
+        }
+
+        return CATEGORY_CATALOG.resolve(conn, categoryIds);
+    }
+
+    private List<Step> fetchStepsForProject(Connection conn, Integer projectId) throws SQLException {
+        String sql = ""
+                + "SELECT * FROM " + STEP_TABLE + " "
+                + "WHERE project_id = ? "
+                + "ORDER BY step_order";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                RowMapper<Step> mapper = rowMapper(rs, Step.class);
+                List<Step> steps = new LinkedList<>();
+
+                while (rs.next()) {
+                    steps.add(mapper.map(rs));
+                }
+                return steps;
+            }
+        }
+    }
+
+    /**
+     * Writes the project details that were changed since the project was loaded or last saved (see
+     * {@link Project#getModifiedFields()}). The UPDATE sets only those columns, and when nothing
+     * changed only the project's existence is checked. Once the changes are committed they are
+     * cleared from the project.
+     *
+     * <p>Optimistic locking is off unless projects.db.optimisticLocking is set, because it needs a
+     * column the original schema does not have:
+     *
+     * <pre>
+     * ALTER TABLE project ADD COLUMN version INT NOT NULL DEFAULT 0;
+     * </pre>
+     *
+     * When it is on, every update increments the project's version. If the project carries a
+     * version, the update only applies to that version of the row, so changes made since the project
+     * was read are never overwritten; the conflict is reported instead. On success the project's
+     * version is advanced to match the row. A project without a version is updated unconditionally.
+     * When it is off, projects are read without a version and any version set on the project is
+     * ignored.
+     *
+     * @param project The project, with its ID set.
+     * @return True if the project was updated, or exists when there was nothing to update; false if
+     *         no project has the ID.
+     * @throws ProjectConflictException Thrown if the project's version is not the current version.
+     */
+    public boolean modifyProjectDetails(Project project) {
+        List<String> fields = new ArrayList<>(project.getModifiedFields());
+
+        if (fields.isEmpty()) {
+            return projectExists(project.getProjectId());
+        }
+
+        StringJoiner assignments = new StringJoiner(", ");
+
+        for (String field : fields) {
+            assignments.add(camelCaseToSnakeCase(field) + " = ?");
+        }
+
+        boolean versioned = DbConnection.isOptimisticLocking();
+        Integer expectedVersion = versioned ? project.getVersion() : null;
+        String sql = "UPDATE " + PROJECT_TABLE + " SET " + assignments + (versioned ? ", version = version + 1" : "")
+                + " WHERE project_id = ?" + (Objects.isNull(expectedVersion) ? "" : " AND version = ?");
+
+        boolean modified = false;
+        Integer currentVersion = null;
+
+        try (Connection conn = getConnection("modifyProjectDetails")) {
+            startTransaction(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                int parameterIndex = 1;
+
+                for (String field : fields) {
+                    setProjectField(stmt, parameterIndex++, project, field);
+                }
+
+                setParameter(stmt, parameterIndex++, project.getProjectId(), Integer.class);
+
+                if (Objects.nonNull(expectedVersion)) {
+                    setParameter(stmt, parameterIndex, expectedVersion, Integer.class);
+                }
+
+                int rowsAffected = stmt.executeUpdate();
+                modified = rowsAffected == 1;
+
+                if (!modified && Objects.nonNull(expectedVersion)) {
+                    currentVersion = fetchProjectVersion(conn, project.getProjectId());
+                }
+
+                commitTransaction(conn);
+
+                if (modified) {
+                    project.clearModified();
+
+                    if (Objects.nonNull(expectedVersion)) {
+                        project.setVersion(expectedVersion + 1);
+                    }
+                }
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        if (Objects.nonNull(currentVersion)) {
+            throw new ProjectConflictException(project.getProjectId(), expectedVersion, currentVersion);
+        }
+
+        return modified;
+    }
+
+    /* Checked on the primary, like the update it stands in for, so a lagging replica cannot miss it. */
+    private boolean projectExists(Integer projectId) {
+        String sql = "SELECT 1 FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+        try (Connection conn = getConnection("modifyProjectDetails");
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /* Returns null if there is no project with the ID. */
+    private Integer fetchProjectVersion(Connection conn, Integer projectId) throws SQLException {
+        String sql = "SELECT version FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    private void setProjectField(PreparedStatement stmt, int parameterIndex, Project project, String field)
+            throws SQLException {
+        switch (field) {
+            case "projectName" -> setParameter(stmt, parameterIndex, project.getProjectName(), String.class);
+            case "estimatedHours" -> setParameter(stmt, parameterIndex, project.getEstimatedHours(), BigDecimal.class);
+            case "actualHours" -> setParameter(stmt, parameterIndex, project.getActualHours(), BigDecimal.class);
+            case "difficulty" -> setParameter(stmt, parameterIndex, project.getDifficulty(), Integer.class);
+            case "notes" -> setParameter(stmt, parameterIndex, project.getNotes(), String.class);
+            default -> throw new DaoException("Project field " + field + " cannot be updated");
+        }
+    }
+
+    /**
+     * Deletes a project. Its materials, steps and category links are removed by the foreign keys'
+     * ON DELETE CASCADE.
+     *
+     * @param projectId The ID of the project to delete.
+     * @return True if the project was deleted, false if no project has the ID.
+     */
+    public boolean deleteProject(Integer projectId) {
+        String sql = "DELETE FROM " + PROJECT_TABLE + " WHERE project_id = ?";
+
+        try (Connection conn = getConnection("deleteProject")) {
+            startTransaction(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                setParameter(stmt, 1, projectId, Integer.class);
+
+                boolean deleted = stmt.executeUpdate() == 1;
+
+                commitTransaction(conn);
+                return deleted;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
                 throw new DbException("Error deleting project with ID " + projectId, e);
             }
         } catch (SQLException e) {
             throw new DbException("Error deleting project with ID " + projectId, e);
-        } finally {
-            if (conn != null) {
+        }
+    }
+
+    public BatchDeleteResult deleteProjects(Collection<Integer> projectIds) {
+        return deleteProjects(projectIds, DEFAULT_DELETE_BATCH_SIZE);
+    }
+
+    /**
+     * Deletes many projects with one connection and one transaction per batch of batchSize IDs. Each
+     * batch locks the projects that exist, then deletes their category links, materials and steps and
+     * finally the projects themselves, with one set-based statement per table. Deleting the children
+     * first saves InnoDB from cascading the deletes a row at a time.
+     *
+     * <p>The IDs are processed in ascending order, so concurrent bulk deletes lock rows in the same
+     * order and do not deadlock each other. If a batch fails, its transaction is rolled back, its IDs
+     * are reported as failures in the result and the following batches are still deleted.
+     *
+     * @param projectIds The IDs of the projects to delete. Duplicates and nulls are ignored.
+     * @param batchSize The number of IDs deleted per transaction, at most 1000.
+     * @return The outcome for each ID.
+     */
+    public BatchDeleteResult deleteProjects(Collection<Integer> projectIds, int batchSize) {
+        if (batchSize < 1 || batchSize > IN_CLAUSE_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Batch size must be from 1 to " + IN_CLAUSE_CHUNK_SIZE + ": " + batchSize);
+        }
+
+        BatchDeleteResult result = new BatchDeleteResult();
+        List<Integer> ids = projectIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+
+        if (ids.isEmpty()) {
+            return result;
+        }
+
+        try (Connection conn = getConnection("deleteProjects")) {
+            for (List<Integer> batch : chunk(ids, batchSize)) {
+                startTransaction(conn);
+
                 try {
-                    conn.setAutoCommit(true);  // Reset autocommit
-                    conn.close();  // Close connection
-                } catch (SQLException e) {
-                    throw new DbException("Error closing connection", e);
+                    List<Integer> existing = lockProjects(conn, batch);
+
+                    if (!existing.isEmpty()) {
+                        deleteByProjectIds(conn, PROJECT_CATEGORY_TABLE, existing);
+                        deleteByProjectIds(conn, MATERIAL_TABLE, existing);
+                        deleteByProjectIds(conn, STEP_TABLE, existing);
+                        deleteByProjectIds(conn, PROJECT_TABLE, existing);
+                    }
+
+                    commitTransaction(conn);
+
+                    Set<Integer> missing = new LinkedHashSet<>(batch);
+                    existing.forEach(missing::remove);
+
+                    result.addDeleted(existing);
+                    result.addNotFound(missing);
+                } catch (Exception e) {
+                    rollbackTransaction(conn);
+                    DbException cause = new DbException("Unable to delete batch of projects starting at ID "
+                            + batch.get(0), e);
+
+                    for (Integer projectId : batch) {
+                        result.addFailure(projectId, cause);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        return result;
+    }
+
+    /* Locks the projects with the given IDs for the rest of the transaction and returns the IDs found. */
+    private List<Integer> lockProjects(Connection conn, List<Integer> projectIds) throws SQLException {
+        String sql = "SELECT project_id FROM " + PROJECT_TABLE + " WHERE project_id IN ("
+                + placeholders(projectIds.size()) + ") FOR UPDATE";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Integer> existing = new ArrayList<>(projectIds.size());
+
+                while (rs.next()) {
+                    existing.add(rs.getInt(1));
                 }
+
+                return existing;
             }
         }
     }
-}
\ No newline at end of file
+
+    private void deleteByProjectIds(Connection conn, String table, List<Integer> projectIds) throws SQLException {
+        String sql = "DELETE FROM " + table + " WHERE project_id IN (" + placeholders(projectIds.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameters(stmt, 1, projectIds);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Adds materials to a project with a single batched INSERT.
+     *
+     * @param projectId The ID of the project.
+     * @param materials The materials to add. Their project and material IDs are set.
+     * @return The materials.
+     * @throws DbException Thrown if the project does not exist or the insert fails.
+     */
+    public List<Material> addMaterials(Integer projectId, List<Material> materials) {
+        return writeMaterials("addMaterials", projectId, materials, false);
+    }
+
+    /**
+     * Replaces all of a project's materials: the existing ones are deleted and the new ones inserted
+     * with a single batched INSERT, in one transaction.
+     *
+     * @param projectId The ID of the project.
+     * @param materials The project's new materials. Their project and material IDs are set.
+     * @return The materials.
+     * @throws DbException Thrown if the project does not exist or a statement fails.
+     */
+    public List<Material> replaceMaterials(Integer projectId, List<Material> materials) {
+        return writeMaterials("replaceMaterials", projectId, materials, true);
+    }
+
+    private List<Material> writeMaterials(String operation, Integer projectId, List<Material> materials,
+                                          boolean replace) {
+        try (Connection conn = getConnection(operation)) {
+            startTransaction(conn);
+
+            try {
+                lockProject(conn, projectId);
+
+                if (replace) {
+                    deleteByProjectIds(conn, MATERIAL_TABLE, List.of(projectId));
+                }
+
+                materials.forEach(material -> material.setProjectId(projectId));
+                insertMaterials(conn, materials);
+
+                commitTransaction(conn);
+                return materials;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                materials.forEach(material -> material.setMaterialId(null));
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Adds steps to the end of a project's step list with a single batched INSERT. The project row is
+     * locked while the steps are numbered, so concurrent callers adding steps to the same project are
+     * numbered one after the other instead of getting the same step orders.
+     *
+     * @param projectId The ID of the project.
+     * @param steps The steps to add, in order. Their project IDs, step IDs and step orders are set.
+     * @return The steps.
+     * @throws DbException Thrown if the project does not exist or the insert fails.
+     */
+    public List<Step> addSteps(Integer projectId, List<Step> steps) {
+        return writeSteps("addSteps", projectId, steps, false);
+    }
+
+    /**
+     * Replaces all of a project's steps: the existing ones are deleted and the new ones inserted with
+     * a single batched INSERT, in one transaction.
+     *
+     * @param projectId The ID of the project.
+     * @param steps The project's new steps, in order. Their project IDs, step IDs and step orders are
+     *        set.
+     * @return The steps.
+     * @throws DbException Thrown if the project does not exist or a statement fails.
+     */
+    public List<Step> replaceSteps(Integer projectId, List<Step> steps) {
+        return writeSteps("replaceSteps", projectId, steps, true);
+    }
+
+    private List<Step> writeSteps(String operation, Integer projectId, List<Step> steps, boolean replace) {
+        try (Connection conn = getConnection(operation)) {
+            startTransaction(conn);
+
+            try {
+                lockProject(conn, projectId);
+
+                long stepOrder = STEP_ORDER_GAP;
+
+                if (replace) {
+                    deleteByProjectIds(conn, STEP_TABLE, List.of(projectId));
+                } else {
+                    stepOrder += fetchMaxStepOrder(conn, projectId);
+
+                    if (stepOrder + (long) steps.size() * STEP_ORDER_GAP > Integer.MAX_VALUE) {
+                        rebalanceSteps(conn, projectId, List.of());
+                        stepOrder = fetchMaxStepOrder(conn, projectId) + STEP_ORDER_GAP;
+                    }
+                }
+
+                for (Step step : steps) {
+                    step.setProjectId(projectId);
+                    step.setStepOrder((int) stepOrder);
+                    stepOrder += STEP_ORDER_GAP;
+                }
+
+                insertSteps(conn, steps);
+
+                commitTransaction(conn);
+                return steps;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                steps.forEach(step -> step.setStepId(null));
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Adds a step to a project after another step. The new step is given the step order halfway
+     * between its neighbours', so no other step is renumbered unless the two are adjacent or equal
+     * numbers, in which case the project's steps are first spread out again (see
+     * {@link #reorderSteps}).
+     *
+     * @param projectId The ID of the project.
+     * @param step The step to add. Its project ID, step ID and step order are set.
+     * @param afterStepId The ID of the step to insert after, or null to make the step the first one.
+     * @return The step.
+     * @throws DbException Thrown if the project or the step to insert after does not exist.
+     */
+    public Step insertStep(Integer projectId, Step step, Integer afterStepId) {
+        try (Connection conn = getConnection("insertStep")) {
+            startTransaction(conn);
+
+            try {
+                lockProject(conn, projectId);
+
+                step.setProjectId(projectId);
+                step.setStepOrder(stepOrderAfter(conn, projectId, afterStepId, null));
+                insertSteps(conn, List.of(step));
+
+                commitTransaction(conn);
+                return step;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                step.setStepId(null);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Moves a step to follow another step. Only the moved step's row is updated, unless its new
+     * neighbours have adjacent or equal step orders, in which case the project's steps are first
+     * spread out again.
+     *
+     * @param projectId The ID of the project.
+     * @param stepId The ID of the step to move.
+     * @param afterStepId The ID of the step to move it after, or null to make it the first step.
+     * @return True if the step was moved, false if the project has no step with the ID.
+     * @throws DbException Thrown if the project or the step to move after does not exist.
+     */
+    public boolean moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+        if (Objects.equals(stepId, afterStepId)) {
+            throw new IllegalArgumentException("Step " + stepId + " cannot be moved after itself");
+        }
+
+        String sql = "UPDATE " + STEP_TABLE + " SET step_order = ? WHERE project_id = ? AND step_id = ?";
+
+        try (Connection conn = getConnection("moveStep")) {
+            startTransaction(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                lockProject(conn, projectId);
+
+                setParameter(stmt, 1, stepOrderAfter(conn, projectId, afterStepId, stepId), Integer.class);
+                setParameter(stmt, 2, projectId, Integer.class);
+                setParameter(stmt, 3, stepId, Integer.class);
+
+                boolean moved = stmt.executeUpdate() == 1;
+
+                commitTransaction(conn);
+                return moved;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Sets the order of a project's steps with a single UPDATE. The listed steps come first, in the
+     * given order, and steps of the project that are not listed follow them, keeping their relative
+     * order, so passing every step ID sets the complete order. Every step is renumbered with the full
+     * gap between neighbours. IDs of steps that belong to other projects are ignored.
+     *
+     * @param projectId The ID of the project.
+     * @param stepIds The step IDs in their new order.
+     * @throws DbException Thrown if the project does not exist or the update fails.
+     */
+    public void reorderSteps(Integer projectId, List<Integer> stepIds) {
+        try (Connection conn = getConnection("reorderSteps")) {
+            startTransaction(conn);
+
+            try {
+                lockProject(conn, projectId);
+                rebalanceSteps(conn, projectId, stepIds);
+
+                commitTransaction(conn);
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /*
+     * Renumbers all of a project's steps STEP_ORDER_GAP apart, listed steps first in the given order,
+     * then the others by their current order. Must be called with the project locked.
+     */
+    private void rebalanceSteps(Connection conn, Integer projectId, List<Integer> firstStepIds) throws SQLException {
+        StringBuilder order = new StringBuilder();
+
+        if (!firstStepIds.isEmpty()) {
+            order.append("CASE step_id ");
+
+            for (int i = 0; i < firstStepIds.size(); i++) {
+                order.append("WHEN ? THEN ? ");
+            }
+
+            order.append("ELSE ? END, ");
+        }
+
+        order.append("step_order, step_id");
+
+        String sql = ""
+                + "UPDATE " + STEP_TABLE + " s "
+                + "JOIN ("
+                + "SELECT step_id, ROW_NUMBER() OVER (ORDER BY " + order + ") AS step_number "
+                + "FROM " + STEP_TABLE + " WHERE project_id = ?"
+                + ") numbered ON numbered.step_id = s.step_id "
+                + "SET s.step_order = numbered.step_number * ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int parameterIndex = 1;
+
+            if (!firstStepIds.isEmpty()) {
+                for (int i = 0; i < firstStepIds.size(); i++) {
+                    setParameter(stmt, parameterIndex++, firstStepIds.get(i), Integer.class);
+                    setParameter(stmt, parameterIndex++, i, Integer.class);
+                }
+
+                setParameter(stmt, parameterIndex++, firstStepIds.size(), Integer.class);
+            }
+
+            setParameter(stmt, parameterIndex++, projectId, Integer.class);
+            setParameter(stmt, parameterIndex, STEP_ORDER_GAP, Integer.class);
+            stmt.executeUpdate();
+        }
+    }
+
+    /*
+     * Returns a step order between the given step and the step that follows it, ignoring the step
+     * being moved, if any. The project's steps are rebalanced first if the two are adjacent numbers,
+     * or if another step shares the given step's order, as numbering written before sparse orders
+     * can, because the position after such a step is ambiguous. Must be called with the project
+     * locked.
+     */
+    private int stepOrderAfter(Connection conn, Integer projectId, Integer afterStepId, Integer movingStepId)
+            throws SQLException {
+        for (boolean rebalanced = false; ; rebalanced = true) {
+            long previous = Objects.isNull(afterStepId) ? 0 : fetchStepOrder(conn, projectId, afterStepId);
+            Integer next = fetchNextStepOrder(conn, projectId, previous, movingStepId);
+
+            if (!hasStepSharingOrder(conn, projectId, previous, afterStepId, movingStepId)) {
+                if (Objects.isNull(next)) {
+                    if (previous + STEP_ORDER_GAP <= Integer.MAX_VALUE) {
+                        return (int) (previous + STEP_ORDER_GAP);
+                    }
+                } else if (next - previous > 1) {
+                    return (int) ((previous + next) / 2);
+                }
+            }
+
+            if (rebalanced) {
+                throw new DbException("No room for a step after step " + afterStepId + " in project " + projectId);
+            }
+
+            rebalanceSteps(conn, projectId, List.of());
+        }
+    }
+
+    private int fetchStepOrder(Connection conn, Integer projectId, Integer stepId) throws SQLException {
+        String sql = "SELECT step_order FROM " + STEP_TABLE + " WHERE project_id = ? AND step_id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+            setParameter(stmt, 2, stepId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new DbException("Project " + projectId + " has no step with ID=" + stepId);
+                }
+
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /*
+     * Returns true if a step other than the given ones is at the step order, or, for a step order of
+     * 0, meaning the start of the list, at 0 or below.
+     */
+    private boolean hasStepSharingOrder(Connection conn, Integer projectId, long stepOrder, Integer afterStepId,
+                                        Integer movingStepId) throws SQLException {
+        String sql = ""
+                + "SELECT 1 FROM " + STEP_TABLE + " "
+                + "WHERE project_id = ? AND step_order BETWEEN ? AND ? AND step_id <> ? AND step_id <> ? "
+                + "LIMIT 1";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+            setParameter(stmt, 2, stepOrder == 0 ? Integer.MIN_VALUE : (int) stepOrder, Integer.class);
+            setParameter(stmt, 3, (int) stepOrder, Integer.class);
+            setParameter(stmt, 4, Objects.isNull(afterStepId) ? 0 : afterStepId, Integer.class);
+            setParameter(stmt, 5, Objects.isNull(movingStepId) ? 0 : movingStepId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /* Returns null if no step follows. */
+    private Integer fetchNextStepOrder(Connection conn, Integer projectId, long stepOrder, Integer excludedStepId)
+            throws SQLException {
+        String sql = ""
+                + "SELECT MIN(step_order) FROM " + STEP_TABLE + " "
+                + "WHERE project_id = ? AND step_order > ? AND step_id <> ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+            setParameter(stmt, 2, (int) stepOrder, Integer.class);
+            setParameter(stmt, 3, Objects.isNull(excludedStepId) ? 0 : excludedStepId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                int next = rs.getInt(1);
+                return rs.wasNull() ? null : next;
+            }
+        }
+    }
+
+    /**
+     * @return True if the material was deleted, false if the project has no material with the ID.
+     */
+    public boolean deleteMaterial(Integer projectId, Integer materialId) {
+        return deleteChild("deleteMaterial", MATERIAL_TABLE, "material_id", projectId, materialId);
+    }
+
+    /**
+     * Deletes a step. The remaining steps keep their step orders, so the order has a gap but is
+     * otherwise unchanged.
+     *
+     * @return True if the step was deleted, false if the project has no step with the ID.
+     */
+    public boolean deleteStep(Integer projectId, Integer stepId) {
+        return deleteChild("deleteStep", STEP_TABLE, "step_id", projectId, stepId);
+    }
+
+    private boolean deleteChild(String operation, String table, String idName, Integer projectId, Integer id) {
+        String sql = "DELETE FROM " + table + " WHERE project_id = ? AND " + idName + " = ?";
+
+        try (Connection conn = getConnection(operation)) {
+            startTransaction(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                setParameter(stmt, 1, projectId, Integer.class);
+                setParameter(stmt, 2, id, Integer.class);
+
+                boolean deleted = stmt.executeUpdate() == 1;
+
+                commitTransaction(conn);
+                return deleted;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /*
+     * Locks the project row for the rest of the transaction. Child writes take this lock first so
+     * that writers of the same project's children run one at a time.
+     */
+    private void lockProject(Connection conn, Integer projectId) throws SQLException {
+        if (lockProjects(conn, List.of(projectId)).isEmpty()) {
+            throw new DbException("Project with ID=" + projectId + " does not exist");
+        }
+    }
+
+    /* Returns 0 if the project has no steps. Must be called with the project locked. */
+    private int fetchMaxStepOrder(Connection conn, Integer projectId) throws SQLException {
+        String sql = "SELECT COALESCE(MAX(step_order), 0) FROM " + STEP_TABLE + " WHERE project_id = ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameter(stmt, 1, projectId, Integer.class);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    /**
+     * @return Every category. The table is read each time, which also refreshes the in-memory
+     *         catalog, so categories added since it was loaded are included.
+     */
+    public List<Category> fetchAllCategories() {
+        try (Connection conn = getReadOnlyConnection("fetchAllCategories")) {
+            Map<Integer, Category> categories = CATEGORY_CATALOG.reload(conn);
+            return categories.values().stream().map(CategoryCatalog::copyOf).toList();
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Reloads the category catalog on its next use. Call this after changing the category table
+     * outside this DAO; categories that are merely added are picked up without it.
+     */
+    public void refreshCategories() {
+        CATEGORY_CATALOG.refresh();
+    }
+
+    /**
+     * Links every given project to every given category with a single INSERT ... SELECT per chunk of
+     * projects, all in one transaction. Links that already exist, and IDs of projects or categories
+     * that do not exist, are skipped.
+     *
+     * @param projectIds The project IDs.
+     * @param categoryIds The category IDs.
+     * @return The number of links added.
+     */
+    public int linkCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds) {
+        return writeCategoryLinks("linkCategories", projectIds, categoryIds, true);
+    }
+
+    /**
+     * Removes the links between every given project and every given category with a single DELETE
+     * per chunk of projects, all in one transaction.
+     *
+     * @param projectIds The project IDs.
+     * @param categoryIds The category IDs.
+     * @return The number of links removed.
+     */
+    public int unlinkCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds) {
+        return writeCategoryLinks("unlinkCategories", projectIds, categoryIds, false);
+    }
+
+    private int writeCategoryLinks(String operation, Collection<Integer> projectIds,
+                                   Collection<Integer> categoryIds, boolean link) {
+        List<Integer> projects = projectIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        List<Integer> categories = categoryIds.stream().filter(Objects::nonNull).distinct().sorted().toList();
+
+        if (projects.isEmpty() || categories.isEmpty()) {
+            return 0;
+        }
+
+        try (Connection conn = getConnection(operation)) {
+            startTransaction(conn);
+
+            try {
+                int changed = 0;
+
+                for (List<Integer> chunk : chunk(projects, IN_CLAUSE_CHUNK_SIZE)) {
+                    changed += link ? insertCategoryLinks(conn, chunk, categories)
+                            : deleteCategoryLinks(conn, chunk, categories);
+                }
+
+                commitTransaction(conn);
+                return changed;
+            } catch (Exception e) {
+                rollbackTransaction(conn);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private int insertCategoryLinks(Connection conn, List<Integer> projectIds, List<Integer> categoryIds)
+            throws SQLException {
+        String sql = ""
+                + "INSERT INTO " + PROJECT_CATEGORY_TABLE + " (project_id, category_id) "
+                + "SELECT p.project_id, c.category_id "
+                + "FROM " + PROJECT_TABLE + " p CROSS JOIN " + CATEGORY_TABLE + " c "
+                + "WHERE p.project_id IN (" + placeholders(projectIds.size()) + ") "
+                + "AND c.category_id IN (" + placeholders(categoryIds.size()) + ") "
+                + "AND NOT EXISTS (SELECT 1 FROM " + PROJECT_CATEGORY_TABLE + " pc "
+                + "WHERE pc.project_id = p.project_id AND pc.category_id = c.category_id)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int parameterIndex = setParameters(stmt, 1, projectIds);
+            setParameters(stmt, parameterIndex, categoryIds);
+            return stmt.executeUpdate();
+        }
+    }
+
+    private int deleteCategoryLinks(Connection conn, List<Integer> projectIds, List<Integer> categoryIds)
+            throws SQLException {
+        String sql = ""
+                + "DELETE FROM " + PROJECT_CATEGORY_TABLE + " "
+                + "WHERE project_id IN (" + placeholders(projectIds.size()) + ") "
+                + "AND category_id IN (" + placeholders(categoryIds.size()) + ")";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int parameterIndex = setParameters(stmt, 1, projectIds);
+            setParameters(stmt, parameterIndex, categoryIds);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads the project, material and project_category tables into a columnar snapshot for
+     * aggregate reports. The three tables and the category catalog are read in one read-only
+     * transaction, so the snapshot is consistent, and each table is streamed from the server in
+     * project ID order straight into the snapshot's columns without building an object per row.
+     *
+     * @return The snapshot.
+     */
+    public ProjectSnapshot loadSnapshot() {
+        try (Connection conn = getReadOnlyConnection("loadSnapshot")) {
+            startReadOnlyTransaction(conn);
+
+            try {
+                ProjectSnapshot snapshot = loadSnapshot(conn);
+                endReadOnlyTransaction(conn);
+                return snapshot;
+            } catch (Exception e) {
+                endReadOnlyTransaction(conn, e);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    private ProjectSnapshot loadSnapshot(Connection conn) throws SQLException {
+        /*
+         * Read the category table in this transaction rather than trusting the cached catalog, which
+         * may predate categories the links below refer to.
+         */
+        Map<Integer, String> categories = new LinkedHashMap<>();
+        CATEGORY_CATALOG.reload(conn)
+                .forEach((categoryId, category) -> categories.put(categoryId, category.getCategoryName()));
+
+        ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder(categories);
+
+        streamRows(conn, ""
+                        + "SELECT project_id, project_name, estimated_hours, actual_hours, difficulty "
+                        + "FROM " + PROJECT_TABLE + " ORDER BY project_id",
+                rs -> builder.addProject(rs.getInt(1), rs.getString(2),
+                        CompactProject.toHundredths(rs.getBigDecimal(3)),
+                        CompactProject.toHundredths(rs.getBigDecimal(4)), nullableInt(rs, 5)));
+
+        streamRows(conn, ""
+                        + "SELECT project_id, material_id, material_name, num_required, cost "
+                        + "FROM " + MATERIAL_TABLE + " ORDER BY project_id, material_id",
+                rs -> builder.addMaterial(rs.getInt(1), rs.getInt(2), rs.getString(3), nullableInt(rs, 4),
+                        CompactProject.toHundredths(rs.getBigDecimal(5))));
+
+        streamRows(conn, ""
+                        + "SELECT project_id, category_id "
+                        + "FROM " + PROJECT_CATEGORY_TABLE + " ORDER BY project_id, category_id",
+                rs -> builder.addCategoryLink(rs.getInt(1), rs.getInt(2)));
+
+        return builder.build();
+    }
+
+    /* Streams the rows of a query to the reader without buffering the result set. */
+    private void streamRows(Connection conn, String sql, RowHandler handler) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fetches the details of every project, without children, in the compact read model.
+     *
+     * @param internNames True to share one String instance between projects with the same name.
+     * @return The projects, ordered by name.
+     */
+    public List<CompactProject> fetchAllCompactProjects(boolean internNames) {
+        String sql = ""
+                + "SELECT project_id, project_name, estimated_hours, actual_hours, difficulty, notes, "
+                + versionColumn() + " "
+                + "FROM " + PROJECT_TABLE + " ORDER BY project_name ASC";
+        Map<String, String> names = internNames ? new HashMap<>() : null;
+
+        try (Connection conn = getReadOnlyConnection("fetchAllCompactProjects");
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            List<CompactProject> projects = new ArrayList<>();
+
+            while (rs.next()) {
+                projects.add(extractCompactProject(rs, names, null, null, null, null));
+            }
+
+            return projects;
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+    }
+
+    /**
+     * Fetches complete projects for all the given IDs in the compact read model. Like
+     * {@link #fetchProjectsByIds(Collection)} this costs four queries per chunk of IDs. The child
+     * queries are ordered by project ID, so each project's rows are collected in one reused list and
+     * copied into an array of exactly the right size.
+     *
+     * @param projectIds The IDs to fetch. Duplicates are ignored.
+     * @param internNames True to share one String instance between projects and materials with the
+     *        same name, which saves memory when names repeat across many projects.
+     * @return The projects that exist, in the order their IDs were given.
+     */
+    public List<CompactProject> fetchCompactProjectsByIds(Collection<Integer> projectIds, boolean internNames) {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(projectIds));
+        Map<Integer, CompactProject> projectsById = new HashMap<>(ids.size() * 4 / 3 + 1);
+        Map<String, String> names = internNames ? new HashMap<>() : null;
+
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try (Connection conn = getReadOnlyConnection("fetchCompactProjectsByIds")) {
+            startReadOnlyTransaction(conn);
+
+            try {
+                for (List<Integer> chunk : chunk(ids, IN_CLAUSE_CHUNK_SIZE)) {
+                    fetchCompactProjectChunk(conn, chunk, names, projectsById);
+                }
+
+                endReadOnlyTransaction(conn);
+            } catch (Exception e) {
+                endReadOnlyTransaction(conn, e);
+                throw new DbException(e);
+            }
+        } catch (SQLException e) {
+            throw new DbException(e);
+        }
+
+        List<CompactProject> projects = new ArrayList<>(projectsById.size());
+
+        for (Integer projectId : ids) {
+            CompactProject project = projectsById.get(projectId);
+
+            if (Objects.nonNull(project)) {
+                projects.add(project);
+            }
+        }
+
+        return projects;
+    }
+
+    /* The children are read first so that each project can be built complete from its row. */
+    private void fetchCompactProjectChunk(Connection conn, List<Integer> projectIds, Map<String, String> names,
+                                          Map<Integer, CompactProject> projectsById) throws SQLException {
+        String in = "(" + placeholders(projectIds.size()) + ")";
+
+        Map<Integer, CompactMaterial[]> materials = readGrouped(conn, ""
+                        + "SELECT project_id, material_id, material_name, num_required, cost "
+                        + "FROM " + MATERIAL_TABLE + " WHERE project_id IN " + in + " "
+                        + "ORDER BY project_id, material_id",
+                projectIds, CompactMaterial[]::new,
+                rs -> new CompactMaterial(rs.getInt(2), intern(names, rs.getString(3)), nullableInt(rs, 4),
+                        CompactProject.toHundredths(rs.getBigDecimal(5))));
+
+        Map<Integer, CompactStep[]> steps = readGrouped(conn, ""
+                        + "SELECT project_id, step_id, step_text, step_order "
+                        + "FROM " + STEP_TABLE + " WHERE project_id IN " + in + " "
+                        + "ORDER BY project_id, step_order",
+                projectIds, CompactStep[]::new,
+                rs -> new CompactStep(rs.getInt(2), rs.getString(3), rs.getInt(4)));
+
+        Map<Integer, Integer[]> categoryIds = readGrouped(conn, ""
+                        + "SELECT project_id, category_id "
+                        + "FROM " + PROJECT_CATEGORY_TABLE + " WHERE project_id IN " + in + " "
+                        + "ORDER BY project_id, category_id",
+                projectIds, Integer[]::new, rs -> rs.getInt(2));
+
+        List<Integer> allCategoryIds = new ArrayList<>();
+        categoryIds.values().forEach(linked -> allCategoryIds.addAll(Arrays.asList(linked)));
+        Map<Integer, Category> catalog = CATEGORY_CATALOG.categories(conn, allCategoryIds);
+
+        String projectSql = ""
+                + "SELECT project_id, project_name, estimated_hours, actual_hours, difficulty, notes, "
+                + versionColumn() + " "
+                + "FROM " + PROJECT_TABLE + " WHERE project_id IN " + in;
+
+        try (PreparedStatement stmt = conn.prepareStatement(projectSql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int projectId = rs.getInt(1);
+                    CompactProject project = extractCompactProject(rs, names, materials.get(projectId),
+                            steps.get(projectId), categoryIds.get(projectId), catalog);
+                    projectsById.put(projectId, project);
+                }
+            }
+        }
+    }
+
+    /* Reads the columns project_id, project_name, estimated_hours, actual_hours, difficulty, notes, version. */
+    private CompactProject extractCompactProject(ResultSet rs, Map<String, String> names,
+                                                 CompactMaterial[] materials, CompactStep[] steps,
+                                                 Integer[] categoryIds, Map<Integer, Category> catalog)
+            throws SQLException {
+        int[] ids = null;
+        String[] categoryNames = null;
+
+        if (Objects.nonNull(categoryIds)) {
+            int count = 0;
+            ids = new int[categoryIds.length];
+            categoryNames = new String[categoryIds.length];
+
+            for (Integer categoryId : categoryIds) {
+                Category category = catalog.get(categoryId);
+
+                if (Objects.nonNull(category)) {
+                    ids[count] = categoryId;
+                    categoryNames[count++] = category.getCategoryName();
+                }
+            }
+
+            if (count < ids.length) {
+                ids = Arrays.copyOf(ids, count);
+                categoryNames = Arrays.copyOf(categoryNames, count);
+            }
+        }
+
+        return new CompactProject(rs.getInt(1), intern(names, rs.getString(2)),
+                CompactProject.toHundredths(rs.getBigDecimal(3)), CompactProject.toHundredths(rs.getBigDecimal(4)),
+                nullableInt(rs, 5), rs.getString(6), rs.getInt(7), materials, steps, ids, categoryNames);
+    }
+
+    /*
+     * Runs a query whose first column is project_id and whose rows are ordered by it, and returns the
+     * rows of each project as an array of exactly the number of rows.
+     */
+    private <T> Map<Integer, T[]> readGrouped(Connection conn, String sql, List<Integer> projectIds,
+                                              IntFunction<T[]> newArray, RowReader<T> reader) throws SQLException {
+        Map<Integer, T[]> grouped = new HashMap<>();
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            setParameters(stmt, 1, projectIds);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<T> rows = new ArrayList<>();
+                int currentProjectId = 0;
+
+                while (rs.next()) {
+                    int projectId = rs.getInt(1);
+
+                    if (projectId != currentProjectId && !rows.isEmpty()) {
+                        grouped.put(currentProjectId, rows.toArray(newArray.apply(rows.size())));
+                        rows.clear();
+                    }
+
+                    currentProjectId = projectId;
+                    rows.add(reader.read(rs));
+                }
+
+                if (!rows.isEmpty()) {
+                    grouped.put(currentProjectId, rows.toArray(newArray.apply(rows.size())));
+                }
+            }
+        }
+
+        return grouped;
+    }
+
+    private static int nullableInt(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? CompactProject.NULL_INT : value;
+    }
+
+    /* Returns the first instance seen of an equal string when names is not null. */
+    private static String intern(Map<String, String> names, String value) {
+        if (Objects.isNull(names) || Objects.isNull(value)) {
+            return value;
+        }
+
+        String existing = names.putIfAbsent(value, value);
+        return Objects.isNull(existing) ? value : existing;
+    }
+
+    @FunctionalInterface
+    private interface RowReader<T> {
+        T read(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void handle(ResultSet rs) throws SQLException;
+    }
+}
@@ -0,0 +1,37 @@
+package projects.dao;
+
+import projects.entity.Project;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of projects from {@link ProjectDao#fetchProjectsPage(ProjectCursor, int)}.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectPage {
+    private final List<Project> projects;
+    private final ProjectCursor nextCursor;
+
+    ProjectPage(List<Project> projects, ProjectCursor nextCursor) {
+        this.projects = projects;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Project> getProjects() {
+        return projects;
+    }
+
+    /**
+     * @return The cursor to pass when requesting the following page, or null if this is the last page.
+     */
+    public ProjectCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasNext() {
+        return Objects.nonNull(nextCursor);
+    }
+}
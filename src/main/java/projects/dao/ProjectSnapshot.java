@@ -0,0 +1,591 @@
+package projects.dao;
+
+import projects.entity.CompactProject;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only copy of the project, material and project_category tables held in columns of
+ * primitives, for reports that aggregate over every project. Each column is one array indexed by
+ * row: decimals are stored as whole hundredths in a long, missing numbers as
+ * {@link CompactProject#NULL_DECIMAL} and {@link CompactProject#NULL_INT}, and names and
+ * difficulties as int codes into a dictionary of their distinct values.
+ *
+ * <p>Projects are held in project ID order. The materials and category links of project row i are
+ * rows offsets[i] up to offsets[i + 1] of their columns, so a project's children are found without
+ * a lookup. The aggregations split the project rows across the common fork-join pool with parallel
+ * streams; each worker sums into its own primitive arrays, which are then added together, so no
+ * boxing or locking happens per row.
+ *
+ * <p>A snapshot never changes once loaded. Load a new one with {@link ProjectDao#loadSnapshot()} to
+ * see later writes.
+ *
+ * @author Promineo
+ *
+ */
+public final class ProjectSnapshot {
+    private final Instant loadedAt;
+
+    /* Project columns, one row per project, ordered by project ID. */
+    private final int[] projectIds;
+    private final int[] projectNameCodes;
+    private final long[] estimatedHours;
+    private final long[] actualHours;
+    private final int[] difficultyCodes;
+
+    /* Material columns. Project row i owns rows materialOffsets[i] until materialOffsets[i + 1]. */
+    private final int[] materialOffsets;
+    private final int[] materialIds;
+    private final int[] materialNameCodes;
+    private final int[] numRequired;
+    private final long[] costs;
+
+    /* Category link column, holding category codes. Project row i owns rows categoryOffsets[i] on. */
+    private final int[] categoryOffsets;
+    private final int[] categoryCodes;
+
+    /* Dictionaries. A code of -1 stands for a null name or difficulty. Difficulties are ascending. */
+    private final String[] names;
+    private final int[] difficulties;
+    private final int[] categoryIds;
+    private final String[] categoryNames;
+
+    private ProjectSnapshot(Builder builder) {
+        loadedAt = Instant.now();
+
+        projectIds = builder.projectIds.toArray();
+        projectNameCodes = builder.projectNameCodes.toArray();
+        estimatedHours = builder.estimatedHours.toArray();
+        actualHours = builder.actualHours.toArray();
+        difficultyCodes = builder.difficultyCodes.toArray();
+
+        materialOffsets = builder.materialOffsets;
+        materialIds = builder.materialIds.toArray();
+        materialNameCodes = builder.materialNameCodes.toArray();
+        numRequired = builder.numRequired.toArray();
+        costs = builder.costs.toArray();
+
+        categoryOffsets = builder.categoryOffsets;
+        categoryCodes = builder.categoryCodes.toArray();
+
+        names = builder.names.toArray(new String[0]);
+        difficulties = builder.difficulties;
+        categoryIds = builder.categoryIds.toArray();
+        categoryNames = builder.categoryNames.toArray(new String[0]);
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    public int getProjectCount() {
+        return projectIds.length;
+    }
+
+    public int getMaterialCount() {
+        return materialIds.length;
+    }
+
+    public int getCategoryLinkCount() {
+        return categoryCodes.length;
+    }
+
+    /**
+     * Totals estimated and actual hours over the projects of each difficulty. Every distinct
+     * difficulty read gets its own total, zero and negative ones included, so the totals are sized to
+     * the number of distinct difficulties rather than to the largest one. Missing hours are left out
+     * of the totals; the counts say how many projects each total covers.
+     *
+     * @return One summary per difficulty in ascending order, followed by the projects with no
+     *         difficulty if there are any.
+     */
+    public List<DifficultyHours> hoursByDifficulty() {
+        /* Slot c totals the difficulty with code c; the last slot the projects with no difficulty. */
+        int noDifficulty = difficulties.length;
+
+        long[][] totals = IntStream.range(0, projectIds.length).parallel().collect(
+                () -> new long[5][noDifficulty + 1],
+                (acc, row) -> {
+                    int slot = difficultyCodes[row] < 0 ? noDifficulty : difficultyCodes[row];
+                    acc[0][slot]++;
+
+                    if (estimatedHours[row] != CompactProject.NULL_DECIMAL) {
+                        acc[1][slot] += estimatedHours[row];
+                        acc[2][slot]++;
+                    }
+
+                    if (actualHours[row] != CompactProject.NULL_DECIMAL) {
+                        acc[3][slot] += actualHours[row];
+                        acc[4][slot]++;
+                    }
+                },
+                ProjectSnapshot::addInto);
+
+        List<DifficultyHours> summaries = new ArrayList<>();
+
+        for (int slot = 0; slot <= noDifficulty; slot++) {
+            if (totals[0][slot] > 0) {
+                summaries.add(new DifficultyHours(slot == noDifficulty ? null : difficulties[slot], totals[0][slot],
+                        BigDecimal.valueOf(totals[1][slot], 2), totals[2][slot],
+                        BigDecimal.valueOf(totals[3][slot], 2), totals[4][slot]));
+            }
+        }
+
+        return summaries;
+    }
+
+    /**
+     * Totals the cost of the materials of the projects in each category. A material costs its cost
+     * times the number required, where a missing number counts as one; materials with no cost are
+     * left out. A project in several categories counts towards each of them.
+     *
+     * @return One summary per category with at least one project, ordered by category ID.
+     */
+    public List<CategoryCost> materialCostByCategory() {
+        int categoryCount = categoryIds.length;
+
+        long[][] totals = IntStream.range(0, projectIds.length).parallel().collect(
+                () -> new long[3][categoryCount],
+                (acc, row) -> {
+                    int firstLink = categoryOffsets[row];
+                    int endLink = categoryOffsets[row + 1];
+
+                    if (firstLink == endLink) {
+                        return;
+                    }
+
+                    long projectCost = 0;
+                    long projectMaterials = 0;
+
+                    for (int material = materialOffsets[row]; material < materialOffsets[row + 1]; material++) {
+                        if (costs[material] != CompactProject.NULL_DECIMAL) {
+                            long count = numRequired[material] == CompactProject.NULL_INT ? 1 : numRequired[material];
+                            projectCost += costs[material] * count;
+                            projectMaterials++;
+                        }
+                    }
+
+                    for (int link = firstLink; link < endLink; link++) {
+                        int category = categoryCodes[link];
+                        acc[0][category]++;
+                        acc[1][category] += projectMaterials;
+                        acc[2][category] += projectCost;
+                    }
+                },
+                ProjectSnapshot::addInto);
+
+        List<CategoryCost> summaries = new ArrayList<>();
+
+        for (int category = 0; category < categoryCount; category++) {
+            if (totals[0][category] > 0) {
+                summaries.add(new CategoryCost(categoryIds[category], categoryNames[category], totals[0][category],
+                        totals[1][category], BigDecimal.valueOf(totals[2][category], 2)));
+            }
+        }
+
+        return summaries;
+    }
+
+    /**
+     * @return The total material cost of each project, keyed by project ID, counted the same way as
+     *         {@link #materialCostByCategory()}.
+     */
+    public Map<Integer, BigDecimal> materialCostByProject() {
+        long[] projectCosts = new long[projectIds.length];
+
+        IntStream.range(0, projectIds.length).parallel().forEach(row -> {
+            long projectCost = 0;
+
+            for (int material = materialOffsets[row]; material < materialOffsets[row + 1]; material++) {
+                if (costs[material] != CompactProject.NULL_DECIMAL) {
+                    long count = numRequired[material] == CompactProject.NULL_INT ? 1 : numRequired[material];
+                    projectCost += costs[material] * count;
+                }
+            }
+
+            projectCosts[row] = projectCost;
+        });
+
+        Map<Integer, BigDecimal> byProject = new HashMap<>(projectIds.length * 4 / 3 + 1);
+
+        for (int row = 0; row < projectIds.length; row++) {
+            byProject.put(projectIds[row], BigDecimal.valueOf(projectCosts[row], 2));
+        }
+
+        return byProject;
+    }
+
+    /**
+     * @return The name of the project with the given ID, or null if the project is not in the
+     *         snapshot or has no name.
+     */
+    public String getProjectName(int projectId) {
+        int row = Arrays.binarySearch(projectIds, projectId);
+        return row < 0 ? null : name(projectNameCodes[row]);
+    }
+
+    /**
+     * @return The material names of the project with the given ID, in material ID order.
+     */
+    public List<String> getMaterialNames(int projectId) {
+        int row = Arrays.binarySearch(projectIds, projectId);
+
+        if (row < 0) {
+            return Collections.emptyList();
+        }
+
+        List<String> materialNames = new ArrayList<>(materialOffsets[row + 1] - materialOffsets[row]);
+
+        for (int material = materialOffsets[row]; material < materialOffsets[row + 1]; material++) {
+            materialNames.add(name(materialNameCodes[material]));
+        }
+
+        return materialNames;
+    }
+
+    private String name(int code) {
+        return code < 0 ? null : names[code];
+    }
+
+    private static void addInto(long[][] target, long[][] source) {
+        for (int column = 0; column < target.length; column++) {
+            for (int slot = 0; slot < target[column].length; slot++) {
+                target[column][slot] += source[column][slot];
+            }
+        }
+    }
+
+    /**
+     * Estimated and actual hours totalled over the projects of one difficulty.
+     */
+    public static final class DifficultyHours {
+        private final Integer difficulty;
+        private final long projectCount;
+        private final BigDecimal estimatedHours;
+        private final long estimatedCount;
+        private final BigDecimal actualHours;
+        private final long actualCount;
+
+        DifficultyHours(Integer difficulty, long projectCount, BigDecimal estimatedHours, long estimatedCount,
+                        BigDecimal actualHours, long actualCount) {
+            this.difficulty = difficulty;
+            this.projectCount = projectCount;
+            this.estimatedHours = estimatedHours;
+            this.estimatedCount = estimatedCount;
+            this.actualHours = actualHours;
+            this.actualCount = actualCount;
+        }
+
+        /**
+         * @return The difficulty, or null for projects that have none.
+         */
+        public Integer getDifficulty() {
+            return difficulty;
+        }
+
+        public long getProjectCount() {
+            return projectCount;
+        }
+
+        public BigDecimal getEstimatedHours() {
+            return estimatedHours;
+        }
+
+        /**
+         * @return The number of projects that have estimated hours.
+         */
+        public long getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        public BigDecimal getActualHours() {
+            return actualHours;
+        }
+
+        /**
+         * @return The number of projects that have actual hours.
+         */
+        public long getActualCount() {
+            return actualCount;
+        }
+
+        @Override
+        public String toString() {
+            return "   difficulty=" + (Objects.isNull(difficulty) ? "none" : difficulty)
+                    + ", projects=" + projectCount
+                    + ", estimatedHours=" + estimatedHours
+                    + ", actualHours=" + actualHours;
+        }
+    }
+
+    /**
+     * The material cost totalled over the projects in one category.
+     */
+    public static final class CategoryCost {
+        private final int categoryId;
+        private final String categoryName;
+        private final long projectCount;
+        private final long materialCount;
+        private final BigDecimal cost;
+
+        CategoryCost(int categoryId, String categoryName, long projectCount, long materialCount, BigDecimal cost) {
+            this.categoryId = categoryId;
+            this.categoryName = categoryName;
+            this.projectCount = projectCount;
+            this.materialCount = materialCount;
+            this.cost = cost;
+        }
+
+        public int getCategoryId() {
+            return categoryId;
+        }
+
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        public long getProjectCount() {
+            return projectCount;
+        }
+
+        /**
+         * @return The number of materials with a cost across the category's projects.
+         */
+        public long getMaterialCount() {
+            return materialCount;
+        }
+
+        public BigDecimal getCost() {
+            return cost;
+        }
+
+        @Override
+        public String toString() {
+            return "   categoryId=" + categoryId
+                    + ", categoryName=" + categoryName
+                    + ", projects=" + projectCount
+                    + ", cost=" + cost;
+        }
+    }
+
+    /**
+     * Collects the rows as they are read. All the projects are added first, in ascending project ID
+     * order, then the materials and then the category links, each also in project ID order. Children
+     * of projects that were not added are skipped.
+     */
+    static final class Builder {
+        private final IntColumn projectIds = new IntColumn();
+        private final IntColumn projectNameCodes = new IntColumn();
+        private final LongColumn estimatedHours = new LongColumn();
+        private final LongColumn actualHours = new LongColumn();
+        private final IntColumn difficultyCodes = new IntColumn();
+
+        private final IntColumn materialIds = new IntColumn();
+        private final IntColumn materialNameCodes = new IntColumn();
+        private final IntColumn numRequired = new IntColumn();
+        private final LongColumn costs = new LongColumn();
+        private final IntColumn categoryCodes = new IntColumn();
+
+        /* Filled in from the child counts when the projects are complete. */
+        private int[] materialOffsets;
+        private int[] categoryOffsets;
+        private int materialRow;
+        private int categoryRow;
+
+        private final List<String> names = new ArrayList<>();
+        private final Map<String, Integer> nameCodes = new HashMap<>();
+        private final Map<Integer, Integer> difficultyCodesByValue = new HashMap<>();
+        private int[] difficulties;
+        private final IntColumn categoryIds = new IntColumn();
+        private final List<String> categoryNames = new ArrayList<>();
+        private final Map<Integer, Integer> categoryCodesById = new HashMap<>();
+
+        /**
+         * @param categories The category names keyed by ID, in category ID order.
+         */
+        Builder(Map<Integer, String> categories) {
+            categories.forEach((categoryId, categoryName) -> {
+                categoryCodesById.put(categoryId, categoryIds.size());
+                categoryIds.add(categoryId);
+                categoryNames.add(categoryName);
+            });
+        }
+
+        void addProject(int projectId, String projectName, long estimated, long actual, int difficulty) {
+            projectIds.add(projectId);
+            projectNameCodes.add(encode(projectName));
+            estimatedHours.add(estimated);
+            actualHours.add(actual);
+            difficultyCodes.add(encodeDifficulty(difficulty));
+        }
+
+        void addMaterial(int projectId, int materialId, String materialName, int required, long cost) {
+            if (Objects.isNull(materialOffsets)) {
+                materialOffsets = new int[projectIds.size() + 1];
+            }
+
+            materialRow = findRow(materialRow, projectId);
+
+            if (materialRow >= 0) {
+                materialIds.add(materialId);
+                materialNameCodes.add(encode(materialName));
+                numRequired.add(required);
+                costs.add(cost);
+                materialOffsets[materialRow + 1]++;
+            } else {
+                materialRow = -materialRow - 1;
+            }
+        }
+
+        /* Links to categories missing from the catalog are skipped. */
+        void addCategoryLink(int projectId, int categoryId) {
+            if (Objects.isNull(categoryOffsets)) {
+                categoryOffsets = new int[projectIds.size() + 1];
+            }
+
+            Integer code = categoryCodesById.get(categoryId);
+            categoryRow = findRow(categoryRow, projectId);
+
+            if (categoryRow >= 0) {
+                if (Objects.nonNull(code)) {
+                    categoryCodes.add(code);
+                    categoryOffsets[categoryRow + 1]++;
+                }
+            } else {
+                categoryRow = -categoryRow - 1;
+            }
+        }
+
+        ProjectSnapshot build() {
+            materialOffsets = offsets(materialOffsets);
+            categoryOffsets = offsets(categoryOffsets);
+            sortDifficulties();
+            return new ProjectSnapshot(this);
+        }
+
+        /* Renumbers the difficulty codes, given in the order first read, in ascending difficulty order. */
+        private void sortDifficulties() {
+            difficulties = difficultyCodesByValue.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            int[] sortedCodes = new int[difficulties.length];
+
+            for (int code = 0; code < difficulties.length; code++) {
+                sortedCodes[difficultyCodesByValue.get(difficulties[code])] = code;
+            }
+
+            for (int row = 0; row < difficultyCodes.size(); row++) {
+                int code = difficultyCodes.get(row);
+
+                if (code >= 0) {
+                    difficultyCodes.set(row, sortedCodes[code]);
+                }
+            }
+        }
+
+        /*
+         * Moves forward from row to the project with the given ID. Returns its row, or -(row + 1) for
+         * the row to continue from if there is no such project.
+         */
+        private int findRow(int row, int projectId) {
+            while (row < projectIds.size() && projectIds.get(row) < projectId) {
+                row++;
+            }
+
+            return row < projectIds.size() && projectIds.get(row) == projectId ? row : -row - 1;
+        }
+
+        /* Turns the child count stored after each project row into the offset of its first child. */
+        private int[] offsets(int[] counts) {
+            int[] offsets = Objects.isNull(counts) ? new int[projectIds.size() + 1] : counts;
+
+            for (int row = 1; row < offsets.length; row++) {
+                offsets[row] += offsets[row - 1];
+            }
+
+            return offsets;
+        }
+
+        private int encode(String name) {
+            if (Objects.isNull(name)) {
+                return -1;
+            }
+
+            return nameCodes.computeIfAbsent(name, key -> {
+                names.add(key);
+                return names.size() - 1;
+            });
+        }
+
+        /* Any value is a difficulty, zero and negative ones included; only NULL_INT means none. */
+        private int encodeDifficulty(int difficulty) {
+            if (difficulty == CompactProject.NULL_INT) {
+                return -1;
+            }
+
+            Integer code = difficultyCodesByValue.get(difficulty);
+
+            if (Objects.isNull(code)) {
+                code = difficultyCodesByValue.size();
+                difficultyCodesByValue.put(difficulty, code);
+            }
+
+            return code;
+        }
+    }
+
+    /* A growable int array, trimmed to size when the snapshot is built. */
+    private static final class IntColumn {
+        private int[] values = new int[64];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        void set(int index, int value) {
+            values[index] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    /* A growable long array, trimmed to size when the snapshot is built. */
+    private static final class LongColumn {
+        private long[] values = new long[64];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package projects.dao;
+
+import projects.exception.DbException;
+import projects.metrics.Instrumentation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads read-only connections over a set of read replicas, each with its own
+ * {@link ConnectionPool}. Replicas are checked in the background; one that cannot hand out a
+ * connection is marked down immediately and skipped until a health check finds it working again.
+ * When no replica can serve a read, {@link #borrow()} returns null and the caller uses the primary.
+ *
+ * @author Promineo
+ *
+ */
+class ReplicaRouter implements AutoCloseable {
+    private static final long HEALTH_CHECK_PERIOD_MILLIS = 5_000;
+    private static final int HEALTH_CHECK_TIMEOUT_SECONDS = 2;
+
+    /**
+     * How a replica is picked for each read.
+     */
+    enum Selection {
+        /** Replicas take turns. */
+        ROUND_ROBIN,
+
+        /**
+         * The replica with the fewest connections checked out is used, taking turns between replicas
+         * that are equally busy. This steers reads away from a replica that is answering slowly.
+         */
+        LEAST_OUTSTANDING
+    }
+
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker;
+
+    ReplicaRouter(List<Replica> replicas, Selection selection) {
+        this.replicas = List.copyOf(replicas);
+        this.selection = selection;
+
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, HEALTH_CHECK_PERIOD_MILLIS,
+                HEALTH_CHECK_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a read-only connection from a healthy replica. If the chosen replica fails to open a
+     * connection it is marked down and the next one is tried. A replica with no free connection is
+     * skipped without waiting, and stays up; the skip is counted in its pool's
+     * {@link PoolStats#getBusyRefusals()}. So when every replica is busy the read goes straight to
+     * the primary rather than waiting on each replica in turn.
+     *
+     * @return A pooled, read-only replica connection, or null if no replica could provide one now.
+     */
+    Connection borrow() {
+        List<Connection> connections = tryBorrow(1);
+        return connections == null ? null : connections.get(0);
+    }
+
+    /**
+     * Borrows several read-only connections, all from the same replica, without waiting. See
+     * {@link ConnectionPool#tryBorrow(int, boolean)}.
+     *
+     * @return The connections, or null if no replica can supply them all right now.
+     */
+    List<Connection> tryBorrow(int count) {
+        for (Replica replica : candidates()) {
+            try {
+                List<Connection> connections = replica.pool.tryBorrow(count, true);
+
+                if (connections != null) {
+                    return connections;
+                }
+            } catch (SQLException e) {
+                markDown(replica, e);
+            } catch (DbException e) {
+                /* The pool was closed by a reload; the caller tries again on the new endpoints. */
+                return null;
+            }
+        }
+
+        return null;
+    }
+
+    /* Healthy replicas in the order they should be tried. */
+    private List<Replica> candidates() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        List<Replica> candidates = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+
+            if (replica.healthy) {
+                candidates.add(replica);
+            }
+        }
+
+        if (selection == Selection.LEAST_OUTSTANDING && candidates.size() > 1) {
+            /* The sort is stable, so equally busy replicas keep their round-robin order. */
+            candidates.sort(Comparator.comparingInt(replica -> replica.pool.inUse()));
+        }
+
+        return candidates;
+    }
+
+    /**
+     * @return The pool counters of each replica, keyed by host:port.
+     */
+    Map<String, PoolStats> stats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+
+        for (Replica replica : replicas) {
+            stats.put(replica.name, replica.pool.stats());
+        }
+
+        return stats;
+    }
+
+    private void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            SQLException cause = null;
+
+            try {
+                List<Connection> connections = replica.pool.tryBorrow(1, true);
+
+                if (connections == null) {
+                    /* Every connection is in use, which says nothing about the replica's health. */
+                    continue;
+                }
+
+                try (Connection conn = connections.get(0)) {
+                    healthy = conn.isValid(HEALTH_CHECK_TIMEOUT_SECONDS);
+                }
+            } catch (SQLException e) {
+                healthy = false;
+                cause = e;
+            } catch (DbException e) {
+                /* The pool was closed by a reload. */
+                return;
+            }
+
+            if (healthy && !replica.healthy) {
+                Instrumentation.connectionEvents().replicaUp(replica.name);
+            } else if (!healthy && replica.healthy) {
+                Instrumentation.connectionEvents().replicaDown(replica.name, cause);
+            }
+
+            replica.healthy = healthy;
+        }
+    }
+
+    private void markDown(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            Instrumentation.connectionEvents().replicaDown(replica.name, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * A replica endpoint and the pool of connections to it.
+     */
+    static class Replica {
+        private final String name;
+        private final ConnectionPool pool;
+        private volatile boolean healthy = true;
+
+        Replica(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+    }
+}
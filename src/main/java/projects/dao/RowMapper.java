@@ -0,0 +1,206 @@
+package projects.dao;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps result set rows onto objects of a given class. This does the same job as
+ * {@link DaoBase#extract(ResultSet, Class)} but does all the reflection once: the constructor and
+ * field setters are resolved to method handles and each field is bound to a column index when the
+ * mapper is built. Mappers are cached per class and result set column layout, so obtaining the
+ * mapper for a query that has already been seen is a map lookup.
+ *
+ * <p>Obtain a mapper once per result set and then call {@link #map(ResultSet)} for each row:
+ *
+ * <pre>
+ * RowMapper&lt;Material&gt; mapper = rowMapper(rs, Material.class);
+ *
+ * while (rs.next()) {
+ *     materials.add(mapper.map(rs));
+ * }
+ * </pre>
+ *
+ * @param <T> The type of object created for each row.
+ * @author Promineo
+ *
+ */
+public final class RowMapper<T> {
+    private static final Map<Key, RowMapper<?>> CACHE = new ConcurrentHashMap<>();
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> classType;
+    private final MethodHandle constructor;
+    private final int[] columnIndexes;
+    private final MethodHandle[] setters;
+    private final Conversion[] conversions;
+
+    private RowMapper(Class<T> classType, MethodHandle constructor, int[] columnIndexes,
+                      MethodHandle[] setters, Conversion[] conversions) {
+        this.classType = classType;
+        this.constructor = constructor;
+        this.columnIndexes = columnIndexes;
+        this.setters = setters;
+        this.conversions = conversions;
+    }
+
+    /**
+     * Returns the mapper for the given class and the columns in the result set, building and caching
+     * it if this column layout has not been seen before.
+     *
+     * @param rs The result set. Only its metadata is read.
+     * @param classType The class of object to create for each row.
+     * @return The mapper.
+     * @throws SQLException Thrown if the result set metadata cannot be read.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> RowMapper<T> forResultSet(ResultSet rs, Class<T> classType) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int columnCount = meta.getColumnCount();
+        String[] labels = new String[columnCount];
+
+        for (int column = 1; column <= columnCount; column++) {
+            labels[column - 1] = meta.getColumnLabel(column).toLowerCase(Locale.ROOT);
+        }
+
+        Key key = new Key(classType, String.join(",", labels));
+        RowMapper<?> mapper = CACHE.get(key);
+
+        if (mapper == null) {
+            mapper = CACHE.computeIfAbsent(key, k -> build(classType, labels));
+        }
+
+        return (RowMapper<T>) mapper;
+    }
+
+    /**
+     * Creates an object from the current row. Columns that are null, and fields without a matching
+     * column, are left with the value assigned when the object was constructed. This preserves
+     * instance variables such as child lists.
+     *
+     * @param rs The result set, positioned on the row to map.
+     * @return The populated object.
+     * @throws SQLException Thrown if a column value cannot be read.
+     */
+    public T map(ResultSet rs) throws SQLException {
+        T obj;
+
+        try {
+            obj = classType.cast(constructor.invoke());
+        } catch (Throwable e) {
+            throw new DaoBase.DaoException("Unable to create object of type " + classType.getName(), e);
+        }
+
+        for (int i = 0; i < columnIndexes.length; i++) {
+            Object value = rs.getObject(columnIndexes[i]);
+
+            if (Objects.nonNull(value)) {
+                try {
+                    setters[i].invokeExact((Object) obj, conversions[i].apply(value));
+                } catch (Throwable e) {
+                    throw new DaoBase.DaoException("Unable to set column " + columnIndexes[i] + " on "
+                            + classType.getName(), e);
+                }
+            }
+        }
+
+        return obj;
+    }
+
+    private static <T> RowMapper<T> build(Class<T> classType, String[] labels) {
+        Map<String, Integer> indexByLabel = new HashMap<>();
+
+        for (int i = 0; i < labels.length; i++) {
+            /* With duplicate labels the first column wins, as it does for ResultSet.getObject(String). */
+            indexByLabel.putIfAbsent(labels[i], i + 1);
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(classType, MethodHandles.lookup());
+            MethodHandle constructor = lookup.findConstructor(classType, MethodType.methodType(void.class));
+
+            List<Integer> indexes = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            List<Conversion> conversions = new ArrayList<>();
+
+            for (Field field : classType.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    continue;
+                }
+
+                Integer index = indexByLabel.get(DaoBase.camelCaseToSnakeCase(field.getName()));
+
+                if (index != null) {
+                    indexes.add(index);
+                    setters.add(lookup.unreflectSetter(field).asType(SETTER_TYPE));
+                    conversions.add(Conversion.forFieldType(field.getType()));
+                }
+            }
+
+            return new RowMapper<>(classType, constructor,
+                    indexes.stream().mapToInt(Integer::intValue).toArray(),
+                    setters.toArray(new MethodHandle[0]),
+                    conversions.toArray(new Conversion[0]));
+        } catch (ReflectiveOperationException e) {
+            throw new DaoBase.DaoException("Unable to create row mapper for type " + classType.getName(), e);
+        }
+    }
+
+    /**
+     * Converts the following types: Time -> LocalTime, and Timestamp -> LocalDateTime. All other
+     * values are assigned as returned by the driver.
+     */
+    private enum Conversion {
+        NONE {
+            @Override
+            Object apply(Object value) {
+                return value;
+            }
+        },
+        LOCAL_TIME {
+            @Override
+            Object apply(Object value) {
+                return value instanceof Time time ? time.toLocalTime() : value;
+            }
+        },
+        LOCAL_DATE_TIME {
+            @Override
+            Object apply(Object value) {
+                return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+            }
+        };
+
+        abstract Object apply(Object value);
+
+        static Conversion forFieldType(Class<?> fieldType) {
+            if (LocalTime.class.equals(fieldType)) {
+                return LOCAL_TIME;
+            }
+
+            if (LocalDateTime.class.equals(fieldType)) {
+                return LOCAL_DATE_TIME;
+            }
+
+            return NONE;
+        }
+    }
+
+    private record Key(Class<?> classType, String columns) {
+    }
+}
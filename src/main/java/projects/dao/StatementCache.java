@@ -0,0 +1,71 @@
+package projects.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The idle prepared statements of one physical connection, keyed by SQL text and the
+ * auto-generated-keys flag they were prepared with. A statement is removed from the cache while a
+ * caller is using it, so two callers never share one. The least-recently-used statement is closed
+ * once the cache is full.
+ *
+ * @author Promineo
+ *
+ */
+class StatementCache {
+    private final int capacity;
+    private final Map<String, PreparedStatement> statements;
+
+    StatementCache(int capacity) {
+        this.capacity = capacity;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    static String key(String sql, int autoGeneratedKeys) {
+        return autoGeneratedKeys + ":" + sql;
+    }
+
+    /**
+     * @return An idle statement for the key, which now belongs to the caller, or null if there is none.
+     */
+    synchronized PreparedStatement take(String key) {
+        return statements.remove(key);
+    }
+
+    /**
+     * Returns a statement the caller has finished with. It is closed instead if caching is disabled.
+     */
+    synchronized void put(String key, PreparedStatement stmt) {
+        if (capacity < 1) {
+            closeQuietly(stmt);
+            return;
+        }
+
+        PreparedStatement replaced = statements.put(key, stmt);
+
+        if (replaced != null && replaced != stmt) {
+            closeQuietly(replaced);
+        }
+
+        if (statements.size() > capacity) {
+            var eldest = statements.entrySet().iterator();
+            closeQuietly(eldest.next().getValue());
+            eldest.remove();
+        }
+    }
+
+    synchronized void closeAll() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement stmt) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            /* The statement is being thrown away; there is nothing more to do with it. */
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+
+/**
+ * A material of a {@link CompactProject}. The project ID is not repeated here.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactMaterial {
+    private final int materialId;
+    private final String materialName;
+    private final int numRequired;
+    private final long cost;
+
+    /**
+     * @param numRequired The number required, or {@link CompactProject#NULL_INT}.
+     * @param cost The cost in hundredths, or {@link CompactProject#NULL_DECIMAL}.
+     */
+    public CompactMaterial(int materialId, String materialName, int numRequired, long cost) {
+        this.materialId = materialId;
+        this.materialName = materialName;
+        this.numRequired = numRequired;
+        this.cost = cost;
+    }
+
+    public int getMaterialId() {
+        return materialId;
+    }
+
+    public String getMaterialName() {
+        return materialName;
+    }
+
+    /**
+     * @return The number required, or {@link CompactProject#NULL_INT}.
+     */
+    public int getNumRequired() {
+        return numRequired;
+    }
+
+    public BigDecimal getCost() {
+        return CompactProject.fromHundredths(cost);
+    }
+
+    /**
+     * @return The cost in hundredths, or {@link CompactProject#NULL_DECIMAL}.
+     */
+    public long getCostHundredths() {
+        return cost;
+    }
+
+    @Override
+    public String toString() {
+        return "ID=" + materialId + ", materialName=" + materialName + ", numRequired=" + numRequired
+                + ", cost=" + getCost();
+    }
+}
@@ -0,0 +1,165 @@
+package projects.entity;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-only, memory-lean form of {@link Project} for reads that load many projects at once. Values
+ * are held in primitive fields: decimal hours are stored as whole hundredths in a long, and missing
+ * values are marked with {@link #NULL_DECIMAL} and {@link #NULL_INT} instead of a null reference.
+ * Children are held in arrays sized exactly to the number of rows, and categories as parallel arrays
+ * of IDs and names, where the names are shared with the category catalog.
+ *
+ * <p>The getters that return BigDecimal or Integer create the object on each call; use the
+ * primitive getters in loops over many projects.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactProject {
+    /** Marks a missing decimal value. */
+    public static final long NULL_DECIMAL = Long.MIN_VALUE;
+
+    /** Marks a missing integer value. */
+    public static final int NULL_INT = Integer.MIN_VALUE;
+
+    private static final CompactMaterial[] NO_MATERIALS = {};
+    private static final CompactStep[] NO_STEPS = {};
+    private static final int[] NO_CATEGORY_IDS = {};
+    private static final String[] NO_CATEGORY_NAMES = {};
+
+    private final int projectId;
+    private final String projectName;
+    private final long estimatedHours;
+    private final long actualHours;
+    private final int difficulty;
+    private final String notes;
+    private final int version;
+
+    private final CompactMaterial[] materials;
+    private final CompactStep[] steps;
+    private final int[] categoryIds;
+    private final String[] categoryNames;
+
+    /**
+     * The arrays are kept, not copied. Null arrays are treated as empty.
+     *
+     * @param estimatedHours Estimated hours in hundredths, or {@link #NULL_DECIMAL}.
+     * @param actualHours Actual hours in hundredths, or {@link #NULL_DECIMAL}.
+     * @param difficulty The difficulty, or {@link #NULL_INT}.
+     * @param categoryIds The category IDs, matching categoryNames by index.
+     */
+    public CompactProject(int projectId, String projectName, long estimatedHours, long actualHours,
+                          int difficulty, String notes, int version, CompactMaterial[] materials,
+                          CompactStep[] steps, int[] categoryIds, String[] categoryNames) {
+        this.projectId = projectId;
+        this.projectName = projectName;
+        this.estimatedHours = estimatedHours;
+        this.actualHours = actualHours;
+        this.difficulty = difficulty;
+        this.notes = notes;
+        this.version = version;
+        this.materials = Objects.isNull(materials) || materials.length == 0 ? NO_MATERIALS : materials;
+        this.steps = Objects.isNull(steps) || steps.length == 0 ? NO_STEPS : steps;
+        this.categoryIds = Objects.isNull(categoryIds) || categoryIds.length == 0 ? NO_CATEGORY_IDS : categoryIds;
+        this.categoryNames = Objects.isNull(categoryNames) || categoryNames.length == 0 ? NO_CATEGORY_NAMES
+                : categoryNames;
+
+        if (this.categoryIds.length != this.categoryNames.length) {
+            throw new IllegalArgumentException("Category IDs and names differ in length");
+        }
+    }
+
+    /**
+     * @return The decimal in whole hundredths, or {@link #NULL_DECIMAL} if it is null.
+     * @throws ArithmeticException Thrown if the value has more than two decimal places.
+     */
+    public static long toHundredths(BigDecimal value) {
+        return Objects.isNull(value) ? NULL_DECIMAL : value.movePointRight(2).longValueExact();
+    }
+
+    /**
+     * @return The decimal for a value in hundredths, or null for {@link #NULL_DECIMAL}.
+     */
+    public static BigDecimal fromHundredths(long hundredths) {
+        return hundredths == NULL_DECIMAL ? null : BigDecimal.valueOf(hundredths, 2);
+    }
+
+    public int getProjectId() {
+        return projectId;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public BigDecimal getEstimatedHours() {
+        return fromHundredths(estimatedHours);
+    }
+
+    /**
+     * @return The estimated hours in hundredths, or {@link #NULL_DECIMAL}.
+     */
+    public long getEstimatedHoursHundredths() {
+        return estimatedHours;
+    }
+
+    public BigDecimal getActualHours() {
+        return fromHundredths(actualHours);
+    }
+
+    /**
+     * @return The actual hours in hundredths, or {@link #NULL_DECIMAL}.
+     */
+    public long getActualHoursHundredths() {
+        return actualHours;
+    }
+
+    /**
+     * @return The difficulty, or {@link #NULL_INT}.
+     */
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public String getNotes() {
+        return notes;
+    }
+
+    /**
+     * @return The version of the project row, or 0 when optimistic locking is not enabled.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public List<CompactMaterial> getMaterials() {
+        return Collections.unmodifiableList(Arrays.asList(materials));
+    }
+
+    public List<CompactStep> getSteps() {
+        return Collections.unmodifiableList(Arrays.asList(steps));
+    }
+
+    public int getCategoryCount() {
+        return categoryIds.length;
+    }
+
+    public int getCategoryId(int index) {
+        return categoryIds[index];
+    }
+
+    public String getCategoryName(int index) {
+        return categoryNames[index];
+    }
+
+    @Override
+    public String toString() {
+        return "ID=" + projectId + ", name=" + projectName + ", estimatedHours=" + getEstimatedHours()
+                + ", actualHours=" + getActualHours() + ", materials=" + materials.length + ", steps="
+                + steps.length + ", categories=" + Arrays.toString(categoryNames);
+    }
+}
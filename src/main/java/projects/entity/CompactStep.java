@@ -0,0 +1,36 @@
+package projects.entity;
+
+/**
+ * A step of a {@link CompactProject}. The project ID is not repeated here.
+ *
+ * @author Promineo
+ *
+ */
+public final class CompactStep {
+    private final int stepId;
+    private final String stepText;
+    private final int stepOrder;
+
+    public CompactStep(int stepId, String stepText, int stepOrder) {
+        this.stepId = stepId;
+        this.stepText = stepText;
+        this.stepOrder = stepOrder;
+    }
+
+    public int getStepId() {
+        return stepId;
+    }
+
+    public String getStepText() {
+        return stepText;
+    }
+
+    public int getStepOrder() {
+        return stepOrder;
+    }
+
+    @Override
+    public String toString() {
+        return "ID=" + stepId + ", stepText=" + stepText;
+    }
+}
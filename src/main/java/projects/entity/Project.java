@@ -3,10 +3,23 @@ package projects.entity; /**
  */
 
 import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
+ * The setters for the project details record which fields they changed, so that updates only write
+ * those columns. To update some details of a stored project, set just those details on a new
+ * Project with the project ID, and the version it is based on if the update should be checked
+ * against concurrent changes. Every setter called on a new Project is recorded, whatever the value,
+ * so setting a detail to null clears the column. A project loaded from the database, or whose
+ * changes have been saved, starts with no changes and from then on only records setters that change
+ * a value. Do not change a project returned by ProjectService.fetchProjectById: it is shared with
+ * other callers through the service's cache.
+ *
  * @author Promineo
  *
  */
@@ -17,11 +30,21 @@ public class Project {
     private BigDecimal actualHours;
     private Integer difficulty;
     private String notes;
+    private Integer version;
 
     private List<Material> materials = new LinkedList<>();
     private List<Step> steps = new LinkedList<>();
     private List<Category> categories = new LinkedList<>();
 
+    /*
+     * Names of the fields changed by the setters since the project was loaded or last saved. Null
+     * until the first change, so loaded projects that are only read do not each hold an empty set.
+     */
+    private Set<String> modifiedFields;
+
+    /* True once the details are known to match the database row, so unchanged values can be skipped. */
+    private boolean matchesRow;
+
     public Integer getProjectId() {
         return projectId;
     }
@@ -35,6 +58,7 @@ public class Project {
     }
 
     public void setProjectName(String projectName) {
+        markModified("projectName", this.projectName, projectName);
         this.projectName = projectName;
     }
 
@@ -43,6 +67,7 @@ public class Project {
     }
 
     public void setEstimatedHours(BigDecimal estimatedHours) {
+        markModified("estimatedHours", this.estimatedHours, estimatedHours);
         this.estimatedHours = estimatedHours;
     }
 
@@ -51,6 +76,7 @@ public class Project {
     }
 
     public void setActualHours(BigDecimal actualHours) {
+        markModified("actualHours", this.actualHours, actualHours);
         this.actualHours = actualHours;
     }
 
@@ -59,6 +85,7 @@ public class Project {
     }
 
     public void setDifficulty(Integer difficulty) {
+        markModified("difficulty", this.difficulty, difficulty);
         this.difficulty = difficulty;
     }
 
@@ -67,9 +94,22 @@ public class Project {
     }
 
     public void setNotes(String notes) {
+        markModified("notes", this.notes, notes);
         this.notes = notes;
     }
 
+    /**
+     * @return The version of the project row this object was read from, or null if unknown. It is
+     *         incremented by every update and used to detect concurrent updates.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public List<Material> getMaterials() {
         return materials;
     }
@@ -82,6 +122,43 @@ public class Project {
         return categories;
     }
 
+    /**
+     * @return The names of the fields changed since the project was loaded or last saved, in the
+     *         order they were first changed.
+     */
+    public Set<String> getModifiedFields() {
+        return Objects.isNull(modifiedFields) ? Set.of() : Collections.unmodifiableSet(modifiedFields);
+    }
+
+    public boolean isModified() {
+        return Objects.nonNull(modifiedFields) && !modifiedFields.isEmpty();
+    }
+
+    /**
+     * Forgets the recorded changes. The DAO calls this once the project has been loaded or its
+     * changes saved, so that from then on only setters that change a value are recorded.
+     */
+    public void clearModified() {
+        modifiedFields = null;
+        matchesRow = true;
+    }
+
+    /* Decimals are compared by value, so 1.5 and 1.50 are not a change. */
+    private void markModified(String fieldName, Object oldValue, Object newValue) {
+        boolean same = matchesRow && (oldValue instanceof BigDecimal oldDecimal
+                && newValue instanceof BigDecimal newDecimal
+                ? oldDecimal.compareTo(newDecimal) == 0
+                : Objects.equals(oldValue, newValue));
+
+        if (!same) {
+            if (Objects.isNull(modifiedFields)) {
+                modifiedFields = new LinkedHashSet<>();
+            }
+
+            modifiedFields.add(fieldName);
+        }
+    }
+
     @Override
     public String toString() {
         String result = "";
@@ -92,6 +169,7 @@ public class Project {
         result += "\n   actualHours=" + actualHours;
         result += "\n   difficulty=" + difficulty;
         result += "\n   notes=" + notes;
+        result += "\n   version=" + version;
 
         result += "\n   Materials:";
 
@@ -0,0 +1,39 @@
+package projects.exception;
+
+/**
+ * Thrown when a project update is based on an old version of the project: someone else has updated
+ * it since it was read. The caller can fetch the project again, reapply its changes and retry.
+ */
+public class ProjectConflictException extends DbException {
+    private static final long serialVersionUID = 1L;
+
+    private final Integer projectId;
+    private final Integer expectedVersion;
+    private final Integer currentVersion;
+
+    public ProjectConflictException(Integer projectId, Integer expectedVersion, Integer currentVersion) {
+        super("Project with ID=" + projectId + " was changed by someone else (expected version "
+                + expectedVersion + ", found " + currentVersion + ")");
+        this.projectId = projectId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public Integer getProjectId() {
+        return projectId;
+    }
+
+    /**
+     * @return The version the update was based on.
+     */
+    public Integer getExpectedVersion() {
+        return expectedVersion;
+    }
+
+    /**
+     * @return The version in the database when the update was attempted.
+     */
+    public Integer getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,92 @@
+package projects.metrics;
+
+import java.sql.SQLException;
+
+/**
+ * Receives events from the connection pools and the database configuration that need attention but
+ * do not fail any DAO call, such as a connection held past the leak threshold or a configuration file
+ * that could not be reloaded. Install an implementation with
+ * {@link Instrumentation#install(ConnectionEvents)}. Until then events are dropped, though
+ * {@link projects.dao.PoolStats} still counts leaks.
+ *
+ * <p>Events are delivered on the thread that noticed them, which is often a pool's housekeeping
+ * thread, so implementations should return quickly.
+ *
+ * @author Promineo
+ *
+ */
+public interface ConnectionEvents {
+    /**
+     * A ConnectionEvents that drops every event.
+     */
+    ConnectionEvents NOOP = new ConnectionEvents() {
+        @Override
+        public void connectionLeaked(long heldMillis, Throwable borrowSite) {
+        }
+
+        @Override
+        public void connectionOpenFailed(SQLException cause) {
+        }
+
+        @Override
+        public void replicaDown(String replica, SQLException cause) {
+        }
+
+        @Override
+        public void replicaUp(String replica) {
+        }
+
+        @Override
+        public void configurationReloaded(boolean newPools) {
+        }
+
+        @Override
+        public void configurationReloadFailed(RuntimeException cause) {
+        }
+    };
+
+    /**
+     * Reported once per checkout, when a connection has been held longer than the leak threshold.
+     *
+     * @param heldMillis How long the connection had been held when the leak was noticed.
+     * @param borrowSite A throwable whose stack trace is that of the code that borrowed the
+     *        connection.
+     */
+    void connectionLeaked(long heldMillis, Throwable borrowSite);
+
+    /**
+     * Reported when a connection opened in the background to keep the pool at its minimum size could
+     * not be opened. Callers borrowing a connection get the error themselves instead.
+     */
+    void connectionOpenFailed(SQLException cause);
+
+    /**
+     * Reported when a read replica stops answering. Reads go to the other replicas, or the primary,
+     * until it passes a health check.
+     *
+     * @param replica The replica's host and port.
+     * @param cause The error that took the replica out of rotation, or null if a health check found
+     *        its connection no longer valid.
+     */
+    void replicaDown(String replica, SQLException cause);
+
+    /**
+     * Reported when a replica that was down passes a health check and takes reads again.
+     *
+     * @param replica The replica's host and port.
+     */
+    void replicaUp(String replica);
+
+    /**
+     * Reported when a change to the configuration file has been applied.
+     *
+     * @param newPools True if the change opened new pools, false if the existing pools were kept.
+     */
+    void configurationReloaded(boolean newPools);
+
+    /**
+     * Reported when a changed configuration file could not be applied. The previous configuration
+     * stays in effect.
+     */
+    void configurationReloadFailed(RuntimeException cause);
+}
@@ -0,0 +1,66 @@
+package projects.metrics;
+
+/**
+ * Receives timings and counts from the DAO layer. Every measurement is attributed to an operation,
+ * which is the name of the DAO method that made it. Install an implementation with
+ * {@link Instrumentation#install(DaoMetrics)}.
+ *
+ * <p>When {@link #isEnabled()} returns false the DAO layer skips instrumentation entirely, so the
+ * disabled implementation costs one volatile read per connection borrowed.
+ *
+ * @author Promineo
+ *
+ */
+public interface DaoMetrics {
+    /**
+     * A DaoMetrics that records nothing.
+     */
+    DaoMetrics NOOP = new DaoMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordConnectionAcquire(String operation, long nanos) {
+        }
+
+        @Override
+        public void recordStatement(String operation, long nanos) {
+        }
+
+        @Override
+        public void recordRows(String operation, long rows, long bytes) {
+        }
+
+        @Override
+        public void recordCommit(String operation) {
+        }
+
+        @Override
+        public void recordRollback(String operation) {
+        }
+    };
+
+    boolean isEnabled();
+
+    /**
+     * @param nanos The time spent waiting for a connection from the pool.
+     */
+    void recordConnectionAcquire(String operation, long nanos);
+
+    /**
+     * @param nanos The time a statement took to execute, not including reading its results.
+     */
+    void recordStatement(String operation, long nanos);
+
+    /**
+     * @param rows The number of result set rows read.
+     * @param bytes The approximate size of the column values read from those rows.
+     */
+    void recordRows(String operation, long rows, long bytes);
+
+    void recordCommit(String operation);
+
+    void recordRollback(String operation);
+}
@@ -0,0 +1,15 @@
+package projects.metrics;
+
+import java.util.List;
+
+/**
+ * The JMX view of {@link RecordingDaoMetrics}, registered as projects:type=DaoMetrics.
+ *
+ * @author Promineo
+ *
+ */
+public interface DaoMetricsMXBean {
+    List<OperationStats> getOperations();
+
+    void reset();
+}
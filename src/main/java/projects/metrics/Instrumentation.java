@@ -0,0 +1,85 @@
+package projects.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Holds the {@link DaoMetrics}, {@link StatementLog} and {@link ConnectionEvents} used by the DAO
+ * layer. Instrumentation is off until {@link #enable()} or one of the install methods is called.
+ *
+ * @author Promineo
+ *
+ */
+public final class Instrumentation {
+    private static final String MBEAN_NAME = "projects:type=DaoMetrics";
+
+    private static volatile DaoMetrics metrics = DaoMetrics.NOOP;
+    private static volatile StatementLog statementLog = StatementLog.DISABLED;
+    private static volatile ConnectionEvents connectionEvents = ConnectionEvents.NOOP;
+
+    private Instrumentation() {
+    }
+
+    public static DaoMetrics metrics() {
+        return metrics;
+    }
+
+    public static void install(DaoMetrics daoMetrics) {
+        metrics = daoMetrics;
+    }
+
+    public static StatementLog statementLog() {
+        return statementLog;
+    }
+
+    /**
+     * Turns on the slow query log and statement sampling as configured in the given log, or turns them
+     * off with {@link StatementLog#DISABLED}.
+     */
+    public static void install(StatementLog log) {
+        statementLog = log;
+    }
+
+    public static ConnectionEvents connectionEvents() {
+        return connectionEvents;
+    }
+
+    /**
+     * Sends connection pool events to the given listener, or drops them with
+     * {@link ConnectionEvents#NOOP}.
+     */
+    public static void install(ConnectionEvents events) {
+        connectionEvents = events;
+    }
+
+    /**
+     * Installs a {@link RecordingDaoMetrics} and registers it with the platform MBean server.
+     *
+     * @return The installed metrics, for taking snapshots or starting periodic reports.
+     */
+    public static synchronized RecordingDaoMetrics enable() {
+        RecordingDaoMetrics recording = new RecordingDaoMetrics();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            ObjectName name = new ObjectName(MBEAN_NAME);
+
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+
+            server.registerMBean(recording, name);
+        } catch (JMException e) {
+            throw new IllegalStateException("Unable to register " + MBEAN_NAME, e);
+        }
+
+        install(recording);
+        return recording;
+    }
+
+    public static synchronized void disable() {
+        install(DaoMetrics.NOOP);
+    }
+}
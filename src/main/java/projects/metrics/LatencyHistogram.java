@@ -0,0 +1,106 @@
+package projects.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, lock-free histogram of nanosecond latencies. Like HdrHistogram, values are counted in
+ * log-linear buckets: each power of two is split into 16 equal sub-buckets, so a percentile is
+ * reported as the top of its bucket, within 1/16 (6.25%) of the true value whatever its magnitude.
+ * Recording is a few shifts and one atomic increment.
+ *
+ * @author Promineo
+ *
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+
+        counts.incrementAndGet(bucketIndex(value));
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    public long getCount() {
+        return total.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long count = total.sum();
+        return count == 0 ? 0.0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @param percentile The percentile to compute, from 0 to 100.
+     * @return The latency at or below which the given percentage of recorded values fall, or zero if
+     *         nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = total.sum();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            seen += counts.get(index);
+
+            if (seen >= target) {
+                return Math.min(bucketUpperBound(index), getMaxNanos());
+            }
+        }
+
+        return getMaxNanos();
+    }
+
+    public void reset() {
+        for (int index = 0; index < BUCKET_COUNT; index++) {
+            counts.set(index, 0);
+        }
+
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+
+        return lowerBound + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,105 @@
+package projects.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point-in-time copy of the metrics recorded for one DAO operation. Latencies are in microseconds.
+ *
+ * @author Promineo
+ *
+ */
+public class OperationStats {
+    private final String operation;
+    private final long statementCount;
+    private final long statementP50Micros;
+    private final long statementP99Micros;
+    private final long statementMaxMicros;
+    private final long acquireCount;
+    private final long acquireP99Micros;
+    private final long rowsMapped;
+    private final long bytesRead;
+    private final long commits;
+    private final long rollbacks;
+
+    OperationStats(String operation, LatencyHistogram statements, LatencyHistogram acquires,
+                   long rowsMapped, long bytesRead, long commits, long rollbacks) {
+        this.operation = operation;
+        this.statementCount = statements.getCount();
+        this.statementP50Micros = toMicros(statements.getValueAtPercentile(50));
+        this.statementP99Micros = toMicros(statements.getValueAtPercentile(99));
+        this.statementMaxMicros = toMicros(statements.getMaxNanos());
+        this.acquireCount = acquires.getCount();
+        this.acquireP99Micros = toMicros(acquires.getValueAtPercentile(99));
+        this.rowsMapped = rowsMapped;
+        this.bytesRead = bytesRead;
+        this.commits = commits;
+        this.rollbacks = rollbacks;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getStatementCount() {
+        return statementCount;
+    }
+
+    public long getStatementP50Micros() {
+        return statementP50Micros;
+    }
+
+    public long getStatementP99Micros() {
+        return statementP99Micros;
+    }
+
+    public long getStatementMaxMicros() {
+        return statementMaxMicros;
+    }
+
+    public long getAcquireCount() {
+        return acquireCount;
+    }
+
+    public long getAcquireP99Micros() {
+        return acquireP99Micros;
+    }
+
+    public long getRowsMapped() {
+        return rowsMapped;
+    }
+
+    /**
+     * @return The approximate size of the column values read. See
+     *         {@link DaoMetrics#recordRows(String, long, long)}.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getCommits() {
+        return commits;
+    }
+
+    public long getRollbacks() {
+        return rollbacks;
+    }
+
+    @Override
+    public String toString() {
+        return operation
+                + ": statements=" + statementCount
+                + ", p50=" + statementP50Micros + "us"
+                + ", p99=" + statementP99Micros + "us"
+                + ", max=" + statementMaxMicros + "us"
+                + ", acquires=" + acquireCount
+                + ", acquireP99=" + acquireP99Micros + "us"
+                + ", rows=" + rowsMapped
+                + ", bytes=" + bytesRead
+                + ", commits=" + commits
+                + ", rollbacks=" + rollbacks;
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
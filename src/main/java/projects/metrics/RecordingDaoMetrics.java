@@ -0,0 +1,121 @@
+package projects.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Keeps latency histograms and counters per DAO operation. Recording is lock-free. Counters are
+ * cumulative until {@link #reset()} is called.
+ *
+ * @author Promineo
+ *
+ */
+public class RecordingDaoMetrics implements DaoMetrics, DaoMetricsMXBean {
+    private final Map<String, OperationMetrics> operations = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reporter;
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void recordConnectionAcquire(String operation, long nanos) {
+        metricsFor(operation).acquires.record(nanos);
+    }
+
+    @Override
+    public void recordStatement(String operation, long nanos) {
+        metricsFor(operation).statements.record(nanos);
+    }
+
+    @Override
+    public void recordRows(String operation, long rows, long bytes) {
+        OperationMetrics metrics = metricsFor(operation);
+        metrics.rows.add(rows);
+        metrics.bytes.add(bytes);
+    }
+
+    @Override
+    public void recordCommit(String operation) {
+        metricsFor(operation).commits.increment();
+    }
+
+    @Override
+    public void recordRollback(String operation) {
+        metricsFor(operation).rollbacks.increment();
+    }
+
+    /**
+     * @return The current metrics of every operation that has recorded anything, by operation name.
+     */
+    public List<OperationStats> snapshot() {
+        List<OperationStats> stats = new ArrayList<>();
+
+        operations.forEach((operation, metrics) -> stats.add(new OperationStats(operation,
+                metrics.statements, metrics.acquires, metrics.rows.sum(), metrics.bytes.sum(),
+                metrics.commits.sum(), metrics.rollbacks.sum())));
+
+        stats.sort(Comparator.comparing(OperationStats::getOperation));
+        return stats;
+    }
+
+    @Override
+    public List<OperationStats> getOperations() {
+        return snapshot();
+    }
+
+    @Override
+    public void reset() {
+        operations.clear();
+    }
+
+    /**
+     * Hands a snapshot to the sink at a fixed interval, on a daemon thread, until
+     * {@link #stopReporting()} is called.
+     *
+     * @param period The time between snapshots.
+     * @param sink Receives each snapshot, for example to log it.
+     */
+    public synchronized void startReporting(Duration period, Consumer<List<OperationStats>> sink) {
+        stopReporting();
+
+        reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dao-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reporter.scheduleAtFixedRate(() -> sink.accept(snapshot()), period.toMillis(), period.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopReporting() {
+        if (reporter != null) {
+            reporter.shutdownNow();
+            reporter = null;
+        }
+    }
+
+    private OperationMetrics metricsFor(String operation) {
+        OperationMetrics metrics = operations.get(operation);
+        return metrics != null ? metrics : operations.computeIfAbsent(operation, name -> new OperationMetrics());
+    }
+
+    private static class OperationMetrics {
+        private final LatencyHistogram statements = new LatencyHistogram();
+        private final LatencyHistogram acquires = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder commits = new LongAdder();
+        private final LongAdder rollbacks = new LongAdder();
+    }
+}
@@ -0,0 +1,144 @@
+package projects.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Captures statements executed by the DAO layer. It has two independent modes:
+ * <ul>
+ * <li>Slow query log: a statement that takes longer than the threshold is passed to the slow query
+ * sink with its SQL, bound parameters, row count and duration.</li>
+ * <li>Sampling: a random fraction of all statements is kept in a fixed-size ring buffer that can be
+ * read with {@link #dump()}. Older samples are overwritten.</li>
+ * </ul>
+ * Bound parameters are only captured while one of the modes is active, and can be redacted.
+ *
+ * <p>The duration is the time from executing the statement until its results have been read and it
+ * is closed.
+ *
+ * @author Promineo
+ *
+ */
+public class StatementLog {
+    /**
+     * A StatementLog that captures nothing.
+     */
+    public static final StatementLog DISABLED = new StatementLog(null, 0.0, 1, false, record -> {
+    });
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final boolean redactParameters;
+    private final Consumer<StatementRecord> slowQuerySink;
+    private final AtomicReferenceArray<StatementRecord> samples;
+    private final AtomicLong sampleCount = new AtomicLong();
+
+    /**
+     * @param slowThreshold Statements taking longer than this are logged, or null to turn off the
+     *        slow query log.
+     * @param sampleRate The fraction of statements kept in the ring buffer, from 0.0 (none) to 1.0.
+     * @param ringCapacity The number of samples kept, at least 1.
+     * @param redactParameters If true, parameter values are replaced with "?".
+     * @param slowQuerySink Receives slow statements.
+     */
+    public StatementLog(Duration slowThreshold, double sampleRate, int ringCapacity, boolean redactParameters,
+                        Consumer<StatementRecord> slowQuerySink) {
+        if (sampleRate < 0.0 || sampleRate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0 and 1: " + sampleRate);
+        }
+
+        if (ringCapacity < 1) {
+            throw new IllegalArgumentException("Ring capacity must be at least 1: " + ringCapacity);
+        }
+
+        this.slowThresholdNanos = Objects.isNull(slowThreshold) ? Long.MAX_VALUE : slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.redactParameters = redactParameters;
+        this.slowQuerySink = slowQuerySink;
+        this.samples = new AtomicReferenceArray<>(ringCapacity);
+    }
+
+    /**
+     * A slow query log that does no sampling.
+     *
+     * @param slowThreshold Statements taking longer than this are logged.
+     * @param redactParameters If true, parameter values are replaced with "?".
+     * @param slowQuerySink Receives slow statements.
+     */
+    public static StatementLog slowQueries(Duration slowThreshold, boolean redactParameters,
+                                           Consumer<StatementRecord> slowQuerySink) {
+        return new StatementLog(slowThreshold, 0.0, 1, redactParameters, slowQuerySink);
+    }
+
+    public boolean isEnabled() {
+        return slowThresholdNanos != Long.MAX_VALUE || sampleRate > 0.0;
+    }
+
+    /**
+     * Decides whether a statement that is about to run is sampled.
+     */
+    public boolean shouldSample() {
+        return sampleRate > 0.0 && (sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * Records a completed statement. It is logged if it was slow and kept if it was sampled.
+     *
+     * @param parameters The bound values, indexed from zero. Entries may be null.
+     */
+    public void record(Instant startedAt, String operation, String sql, Object[] parameters, long rows,
+                       long durationNanos, boolean sampled) {
+        boolean slow = durationNanos > slowThresholdNanos;
+
+        if (!slow && !sampled) {
+            return;
+        }
+
+        StatementRecord record = new StatementRecord(startedAt, operation, sql, formatParameters(parameters),
+                rows, durationNanos);
+
+        if (slow) {
+            slowQuerySink.accept(record);
+        }
+
+        if (sampled) {
+            samples.set((int) (sampleCount.getAndIncrement() % samples.length()), record);
+        }
+    }
+
+    /**
+     * @return The sampled statements currently in the ring buffer, oldest first.
+     */
+    public List<StatementRecord> dump() {
+        long count = sampleCount.get();
+        int capacity = samples.length();
+        List<StatementRecord> records = new ArrayList<>(capacity);
+
+        for (long i = Math.max(0, count - capacity); i < count; i++) {
+            StatementRecord record = samples.get((int) (i % capacity));
+
+            if (Objects.nonNull(record)) {
+                records.add(record);
+            }
+        }
+
+        return records;
+    }
+
+    private List<String> formatParameters(Object[] parameters) {
+        List<String> formatted = new ArrayList<>(parameters.length);
+
+        for (Object parameter : parameters) {
+            formatted.add(redactParameters ? "?" : String.valueOf(parameter));
+        }
+
+        return formatted;
+    }
+}
@@ -0,0 +1,70 @@
+package projects.metrics;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One executed statement, as captured by the {@link StatementLog}.
+ *
+ * @author Promineo
+ *
+ */
+public class StatementRecord {
+    private final Instant startedAt;
+    private final String operation;
+    private final String sql;
+    private final List<String> parameters;
+    private final long rows;
+    private final long durationNanos;
+
+    StatementRecord(Instant startedAt, String operation, String sql, List<String> parameters, long rows,
+                    long durationNanos) {
+        this.startedAt = startedAt;
+        this.operation = operation;
+        this.sql = sql;
+        this.parameters = parameters;
+        this.rows = rows;
+        this.durationNanos = durationNanos;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return The DAO method that ran the statement.
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * @return The bound parameter values in order, or "?" for each value if parameters are redacted.
+     */
+    public List<String> getParameters() {
+        return parameters;
+    }
+
+    /**
+     * @return The rows read from the result sets, or the rows affected by an update.
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return startedAt + " " + operation
+                + " (" + TimeUnit.NANOSECONDS.toMillis(durationNanos) + "ms, " + rows + " rows): "
+                + sql + " " + parameters;
+    }
+}
@@ -0,0 +1,135 @@
+package projects.service;
+
+import projects.dao.BatchDeleteResult;
+import projects.dao.DbConnection;
+import projects.entity.Project;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * A non-blocking facade over {@link ProjectService}. Each call runs on its own virtual thread, so
+ * callers can start many requests and combine the results as they complete. The number of calls
+ * using the database at the same time is capped, by default at the connection pool size, so that
+ * extra requests wait here rather than on the pool's borrow timeout.
+ *
+ * <p>Read replicas serve a thread's reads from the primary for a while after that thread writes, so
+ * it reads its own writes. Calls here run on different threads, so the facade carries the writes
+ * over itself: after a write through this facade, or by the calling thread, the facade's reads go
+ * to the primary for the same window. Callers that should not see each other's writes that quickly
+ * can use separate facades.
+ *
+ * @author Promineo
+ *
+ */
+public class AsyncProjectService implements AutoCloseable {
+    private final ProjectService projectService;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+
+    /* When a call through this facade last committed a write, from System.nanoTime(), or null. */
+    private final AtomicReference<Long> lastWrite = new AtomicReference<>();
+
+    public AsyncProjectService() {
+        this(new ProjectService(), DbConnection.getMaxPoolSize());
+    }
+
+    /**
+     * @param projectService The service that does the work.
+     * @param maxConcurrency The most calls allowed to run at once.
+     */
+    public AsyncProjectService(ProjectService projectService, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Concurrency limit must be at least 1: " + maxConcurrency);
+        }
+
+        this.projectService = projectService;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    public CompletableFuture<Project> addProject(Project project) {
+        return submit(() -> projectService.addProject(project));
+    }
+
+    public CompletableFuture<List<Project>> fetchAllProjects() {
+        return submit(projectService::fetchAllProjects);
+    }
+
+    public CompletableFuture<Project> fetchProjectById(Integer projectId) {
+        return submit(() -> projectService.fetchProjectById(projectId));
+    }
+
+    public CompletableFuture<List<Project>> fetchProjectsByIds(Collection<Integer> projectIds) {
+        return submit(() -> projectService.fetchProjectsByIds(projectIds));
+    }
+
+    public CompletableFuture<Void> modifyProjectDetails(Project newProject) {
+        return submit(() -> {
+            projectService.modifyProjectDetails(newProject);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> modifyProjectDetails(Project newProject, int maxAttempts) {
+        return submit(() -> {
+            projectService.modifyProjectDetails(newProject, maxAttempts);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> deleteProject(int projectId) {
+        return submit(() -> {
+            projectService.deleteProject(projectId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<BatchDeleteResult> deleteProjects(Collection<Integer> projectIds) {
+        return submit(() -> projectService.deleteProjects(projectIds));
+    }
+
+    /**
+     * Stops accepting new calls. Calls already submitted run to completion.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> call) {
+        Long callerWrite = DbConnection.getLastWrite();
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+
+            DbConnection.inheritLastWrite(callerWrite);
+            DbConnection.inheritLastWrite(lastWrite.get());
+
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+                recordWrite(DbConnection.getLastWrite());
+            }
+        }, executor);
+    }
+
+    private void recordWrite(Long written) {
+        if (written != null) {
+            lastWrite.accumulateAndGet(written,
+                    (current, next) -> current == null || next - current > 0 ? next : current);
+        }
+    }
+}
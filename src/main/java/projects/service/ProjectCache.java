@@ -0,0 +1,180 @@
+package projects.service;
+
+import projects.entity.Project;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache of complete {@link Project} aggregates keyed by project ID. Entries are evicted
+ * least-recently-used first once the cache is full, and expire after a fixed time to live.
+ *
+ * <p>Loads race with writes: a project read from the database just before another thread changes it
+ * must not be cached afterwards. Callers take a token with {@link #loadToken()} before reading from
+ * the database and cache the result with {@link #putIfCurrent(Integer, Project, long)}, which
+ * discards it if anything was invalidated in the meantime.
+ *
+ * <p>With read replicas that is not enough: a load that starts after the invalidation can still read
+ * a replica that has not yet applied the write. So a project is also not cached while its last
+ * invalidation is younger than the replica lag window. Reads in that window still go to the
+ * database, and the writer's own reads go to the primary, so nobody is served the old project from
+ * the cache. Once the window has passed, loads are cached as usual.
+ *
+ * @author Promineo
+ *
+ */
+class ProjectCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Integer, Entry> entries;
+    private final LongSupplier lagWindowMillis;
+
+    /*
+     * All fields below are guarded by this. recentInvalidations holds when each project was last
+     * invalidated within the lag window, oldest first, from System.nanoTime().
+     */
+    private final Map<Integer, Long> recentInvalidations = new LinkedHashMap<>();
+    private long allInvalidatedAt;
+    private boolean allInvalidated;
+    private long invalidations;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param lagWindowMillis Supplies how long after a write a read may still return the old data.
+     *        It is asked on each put, so it follows configuration reloads.
+     */
+    ProjectCache(int maxEntries, Duration ttl, LongSupplier lagWindowMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.lagWindowMillis = lagWindowMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() > ProjectCache.this.maxEntries) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached project, or null if it is not cached or has expired.
+     */
+    synchronized Project get(Integer projectId) {
+        Entry entry = entries.get(projectId);
+
+        if (Objects.nonNull(entry) && System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(projectId);
+            evictions++;
+            entry = null;
+        }
+
+        if (Objects.isNull(entry)) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.project;
+    }
+
+    synchronized long loadToken() {
+        return invalidations;
+    }
+
+    /**
+     * Caches a project that was loaded after the token was taken, unless an invalidation has happened
+     * since or the project was invalidated within the replica lag window.
+     */
+    synchronized void putIfCurrent(Integer projectId, Project project, long token) {
+        if (maxEntries > 0 && token == invalidations && !withinLagWindow(projectId)) {
+            entries.put(projectId, new Entry(project, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    synchronized void invalidate(Integer projectId) {
+        invalidations++;
+        entries.remove(projectId);
+
+        long windowNanos = lagWindowNanos();
+
+        if (windowNanos > 0) {
+            long now = System.nanoTime();
+            removeOlderThan(now, windowNanos);
+            recentInvalidations.remove(projectId);
+            recentInvalidations.put(projectId, now);
+        }
+    }
+
+    synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+
+        recentInvalidations.clear();
+        allInvalidatedAt = System.nanoTime();
+        allInvalidated = true;
+    }
+
+    private boolean withinLagWindow(Integer projectId) {
+        long windowNanos = lagWindowNanos();
+        long now = System.nanoTime();
+
+        removeOlderThan(now, windowNanos);
+        return recentInvalidations.containsKey(projectId)
+                || (allInvalidated && now - allInvalidatedAt < windowNanos);
+    }
+
+    private void removeOlderThan(long now, long windowNanos) {
+        /* Entries are in invalidation order, so the expired ones are at the front. */
+        for (Iterator<Long> it = recentInvalidations.values().iterator(); it.hasNext(); ) {
+            if (now - it.next() < windowNanos) {
+                break;
+            }
+
+            it.remove();
+        }
+    }
+
+    private long lagWindowNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(lagWindowMillis.getAsLong());
+    }
+
+    /**
+     * Drops expired entries. Expired entries are also dropped when they are next looked up, so this
+     * only serves to release memory held by projects that are no longer being read.
+     */
+    synchronized void removeExpired() {
+        long now = System.nanoTime();
+
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (now - it.next().expiresAt >= 0) {
+                it.remove();
+                evictions++;
+            }
+        }
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, entries.size());
+    }
+
+    private static class Entry {
+        private final Project project;
+        private final long expiresAt;
+
+        Entry(Project project, long expiresAt) {
+            this.project = project;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,25 +1,101 @@
 package projects.service;
 
+import projects.entity.Category;
+import projects.entity.CompactProject;
+import projects.entity.Material;
 import projects.entity.Project;
+import projects.entity.Step;
+import projects.dao.BatchDeleteResult;
+import projects.dao.BatchInsertResult;
+import projects.dao.DbConnection;
+import projects.dao.ProjectCursor;
 import projects.dao.ProjectDao;
+import projects.dao.ProjectPage;
+import projects.dao.ProjectSnapshot;
 import projects.exception.DbException;
+import projects.exception.ProjectConflictException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class ProjectService {
+    private static final int DEFAULT_CACHE_MAX_ENTRIES = 1000;
+    private static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(5);
+
     private ProjectDao projectDao = new ProjectDao();
+    private final ProjectCache projectCache;
+
+    public ProjectService() {
+        this(DEFAULT_CACHE_MAX_ENTRIES, DEFAULT_CACHE_TTL);
+    }
+
+    /**
+     * @param cacheMaxEntries The most projects kept in the read-through cache. Zero disables caching.
+     * @param cacheTtl How long a cached project is served before it is read from the database again.
+     */
+    public ProjectService(int cacheMaxEntries, Duration cacheTtl) {
+        projectCache = new ProjectCache(cacheMaxEntries, cacheTtl, DbConnection::getReplicaLagWindowMillis);
+    }
 
     public Project addProject(Project project) {
-        return projectDao.insertProject(project);
+        Project dbProject = projectDao.insertProject(project);
+        projectCache.invalidate(dbProject.getProjectId());
+        return dbProject;
+    }
+
+    public BatchInsertResult addProjects(List<Project> projects) {
+        BatchInsertResult result = projectDao.insertProjects(projects);
+        result.getInserted().forEach(project -> projectCache.invalidate(project.getProjectId()));
+        return result;
     }
 
     public List<Project> fetchAllProjects() {
         return projectDao.fetchAllProjects();
     }
 
+    public ProjectPage fetchProjectsPage(ProjectCursor after, int pageSize) {
+        return projectDao.fetchProjectsPage(after, pageSize);
+    }
+
+    public Stream<Project> streamAllProjects() {
+        return projectDao.streamAllProjects();
+    }
+
+    /**
+     * Returns the details of every project, without children, in the compact read model. These are
+     * read straight from the database and are not cached.
+     */
+    public List<CompactProject> fetchAllCompactProjects() {
+        return projectDao.fetchAllCompactProjects(true);
+    }
+
+    /**
+     * Returns complete projects in the compact read model, for callers that hold many projects in
+     * memory at once. These are read straight from the database and are not cached.
+     */
+    public List<CompactProject> fetchCompactProjectsByIds(Collection<Integer> projectIds) {
+        return projectDao.fetchCompactProjectsByIds(projectIds, true);
+    }
+
+    /**
+     * Loads every project, material and category link into a columnar snapshot for aggregate
+     * reports such as {@link ProjectSnapshot#hoursByDifficulty()}. The snapshot is not cached; load a
+     * new one to see later changes.
+     */
+    public ProjectSnapshot loadSnapshot() {
+        return projectDao.loadSnapshot();
+    }
+
     public void addProject(String projectName, BigDecimal estimatedHours) {
         System.out.println("Adding project " + projectName);
         Project project = new Project();
@@ -28,22 +104,238 @@ public class ProjectService {
         projectDao.insertProject(project);
     }
 
+    /**
+     * Returns the project with its materials, steps and categories. Projects are served from the
+     * cache when possible; the returned object is shared with other callers and must not be modified.
+     * With read replicas configured, a project is not cached for the read-your-writes window after it
+     * was written, so a load from a replica that is behind is never kept.
+     */
     public Project fetchProjectById(Integer projectId) {
-        return projectDao.fetchProjectById(projectId)
-                .orElseThrow(() -> new NoSuchElementException("A Project with id " + projectId + " does not exist"));
+        Project project = projectCache.get(projectId);
+
+        if (Objects.isNull(project)) {
+            long token = projectCache.loadToken();
+            project = projectDao.fetchProjectById(projectId)
+                    .orElseThrow(() -> new NoSuchElementException("A Project with id " + projectId + " does not exist"));
+            projectCache.putIfCurrent(projectId, project, token);
+        }
+
+        return project;
     }
 
+    public List<Project> fetchProjectsByIds(Collection<Integer> projectIds) {
+        Map<Integer, Project> projectsById = new HashMap<>();
+        List<Integer> missing = new ArrayList<>();
+
+        for (Integer projectId : projectIds) {
+            Project project = projectCache.get(projectId);
+
+            if (Objects.isNull(project)) {
+                missing.add(projectId);
+            } else {
+                projectsById.put(projectId, project);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long token = projectCache.loadToken();
+
+            for (Project project : projectDao.fetchProjectsByIds(missing)) {
+                projectsById.put(project.getProjectId(), project);
+                projectCache.putIfCurrent(project.getProjectId(), project, token);
+            }
+        }
+
+        List<Project> projects = new ArrayList<>(projectsById.size());
+
+        for (Integer projectId : new LinkedHashSet<>(projectIds)) {
+            Project project = projectsById.get(projectId);
+
+            if (Objects.nonNull(project)) {
+                projects.add(project);
+            }
+        }
+
+        return projects;
+    }
+
+    /**
+     * Writes the details changed on newProject. With no changes it only checks that the project
+     * exists.
+     *
+     * @throws DbException Thrown if no project has newProject's ID.
+     */
     public void modifyProjectDetails(Project newProject) {
-        if (!projectDao.modifyProjectDetails(newProject)) {
+        boolean modified;
+
+        if (newProject.isModified()) {
+            try {
+                modified = projectDao.modifyProjectDetails(newProject);
+            } finally {
+                projectCache.invalidate(newProject.getProjectId());
+            }
+        } else {
+            modified = projectDao.modifyProjectDetails(newProject);
+        }
+
+        if (!modified) {
             throw new DbException("Project with ID=" + newProject.getProjectId() + " does not exist");
         }
     }
 
+    /**
+     * Updates the project like {@link #modifyProjectDetails(Project)}, but when someone else has
+     * updated it since newProject's version was read, the changes are merged onto the latest version
+     * and the update is tried again. Because only the changed columns are written, the merge keeps
+     * the other editors' changes to every field newProject did not change. For fields both changed,
+     * newProject's values win. Conflicts are only detected when projects.db.optimisticLocking is
+     * set; otherwise this is the same as {@link #modifyProjectDetails(Project)}.
+     *
+     * @param newProject The project changes, with the ID and the version they are based on.
+     * @param maxAttempts The most updates to try, including the first.
+     * @throws ProjectConflictException Thrown if the project was still changing after maxAttempts.
+     */
+    public void modifyProjectDetails(Project newProject, int maxAttempts) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                modifyProjectDetails(newProject);
+                return;
+            } catch (ProjectConflictException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+
+                /* A failed update leaves the changes recorded, so they only need rebasing. */
+                newProject.setVersion(e.getCurrentVersion());
+            }
+        }
+    }
+
+    public List<Material> addMaterials(Integer projectId, List<Material> materials) {
+        try {
+            return projectDao.addMaterials(projectId, materials);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public List<Material> replaceMaterials(Integer projectId, List<Material> materials) {
+        try {
+            return projectDao.replaceMaterials(projectId, materials);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public List<Step> addSteps(Integer projectId, List<Step> steps) {
+        try {
+            return projectDao.addSteps(projectId, steps);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public List<Step> replaceSteps(Integer projectId, List<Step> steps) {
+        try {
+            return projectDao.replaceSteps(projectId, steps);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public Step insertStep(Integer projectId, Step step, Integer afterStepId) {
+        try {
+            return projectDao.insertStep(projectId, step, afterStepId);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public boolean moveStep(Integer projectId, Integer stepId, Integer afterStepId) {
+        try {
+            return projectDao.moveStep(projectId, stepId, afterStepId);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public void reorderSteps(Integer projectId, List<Integer> stepIds) {
+        try {
+            projectDao.reorderSteps(projectId, stepIds);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public boolean deleteMaterial(Integer projectId, Integer materialId) {
+        try {
+            return projectDao.deleteMaterial(projectId, materialId);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public boolean deleteStep(Integer projectId, Integer stepId) {
+        try {
+            return projectDao.deleteStep(projectId, stepId);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
+    }
+
+    public List<Category> fetchAllCategories() {
+        return projectDao.fetchAllCategories();
+    }
+
+    public void refreshCategories() {
+        projectDao.refreshCategories();
+        projectCache.invalidateAll();
+    }
+
+    public int linkCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds) {
+        try {
+            return projectDao.linkCategories(projectIds, categoryIds);
+        } finally {
+            projectIds.forEach(projectCache::invalidate);
+        }
+    }
+
+    public int unlinkCategories(Collection<Integer> projectIds, Collection<Integer> categoryIds) {
+        try {
+            return projectDao.unlinkCategories(projectIds, categoryIds);
+        } finally {
+            projectIds.forEach(projectCache::invalidate);
+        }
+    }
+
+    public CacheStats getCacheStats() {
+        projectCache.removeExpired();
+        return projectCache.stats();
+    }
+
+    public void clearCache() {
+        projectCache.invalidateAll();
+    }
+
     public void deleteProject(int projectId) {
-        boolean deleted = projectDao.deleteProject(projectId);
+        boolean deleted;
+
+        try {
+            deleted = projectDao.deleteProject(projectId);
+        } finally {
+            projectCache.invalidate(projectId);
+        }
 
         if(!deleted) {
             throw new DbException("something went wrong deleting " + projectId + ". Please check the ProjectService for more context.");
         }
     }
+
+    public BatchDeleteResult deleteProjects(Collection<Integer> projectIds) {
+        try {
+            return projectDao.deleteProjects(projectIds);
+        } finally {
+            projectIds.forEach(projectCache::invalidate);
+        }
+    }
 }
\ No newline at end of file
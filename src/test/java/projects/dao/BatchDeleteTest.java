@@ -0,0 +1,126 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ProjectDao#deleteProjects(java.util.Collection, int)}: that the projects and all
+ * of their child rows are deleted, that unknown IDs are reported rather than failing the batch, and
+ * that duplicate and null IDs are ignored.
+ *
+ * @author Promineo
+ *
+ */
+public class BatchDeleteTest {
+    private static final List<String> CHILD_TABLES = List.of("material", "step", "project_category");
+
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void projectsAndChildrenAreDeletedAndMissingIdsReported() throws SQLException {
+        List<Integer> projectIds = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            projectIds.add(newProject("Batch delete " + i));
+        }
+
+        Integer kept = newProject("Batch delete kept");
+        Integer missing = projectDao.insertProject(project("Batch delete missing")).getProjectId();
+        projectDao.deleteProject(missing);
+
+        List<Integer> requested = new ArrayList<>(projectIds);
+        requested.addAll(Arrays.asList(missing, null, projectIds.get(0)));
+
+        BatchDeleteResult result = projectDao.deleteProjects(requested, 2);
+
+        assertFalse(result.hasFailures());
+        assertEquals(Set.copyOf(projectIds), result.getDeleted());
+        assertEquals(Set.of(missing), result.getNotFound());
+
+        for (Integer projectId : projectIds) {
+            assertFalse(projectDao.fetchProjectById(projectId).isPresent());
+
+            for (String table : CHILD_TABLES) {
+                assertEquals(table, 0, countRows(table, projectId));
+            }
+        }
+
+        assertTrue(projectDao.fetchProjectById(kept).isPresent());
+
+        for (String table : CHILD_TABLES) {
+            assertEquals(table, 1, countRows(table, kept));
+        }
+    }
+
+    @Test
+    public void noIdsDeleteNothing() {
+        BatchDeleteResult result = projectDao.deleteProjects(Arrays.asList(null, null));
+
+        assertTrue(result.getDeleted().isEmpty());
+        assertTrue(result.getNotFound().isEmpty());
+        assertFalse(result.hasFailures());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void oversizedBatchIsRejected() {
+        projectDao.deleteProjects(List.of(1), 1001);
+    }
+
+    /* A project with one material, one step and one category. */
+    private Integer newProject(String name) {
+        Integer projectId = projectDao.insertProject(project(name)).getProjectId();
+
+        Material material = new Material();
+        material.setMaterialName("Material of " + name);
+        material.setCost(new BigDecimal("1.00"));
+        projectDao.addMaterials(projectId, List.of(material));
+
+        Step step = new Step();
+        step.setStepText("Step of " + name);
+        projectDao.addSteps(projectId, List.of(step));
+
+        projectDao.linkCategories(List.of(projectId), List.of(1));
+        return projectId;
+    }
+
+    private static Project project(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        return project;
+    }
+
+    private static int countRows(String table, Integer projectId) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM " + table + " WHERE project_id = ?";
+
+        try (Connection conn = DbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, projectId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that {@link ProjectDao#insertProjects(List, int)} reports a failed batch by the index of
+ * each project in it, rolls the whole batch back and still inserts the other batches.
+ *
+ * @author Promineo
+ *
+ */
+public class BatchInsertTest {
+    /* No category has this ID, so linking to it fails the batch on its foreign key. */
+    private static final int MISSING_CATEGORY_ID = 999_999;
+
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void failedBatchIsReportedByIndexAndRolledBack() throws SQLException {
+        List<Project> projects = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            projects.add(project("Batch insert " + i, i == 3 ? MISSING_CATEGORY_ID : 1));
+        }
+
+        BatchInsertResult result = projectDao.insertProjects(projects, 2);
+
+        assertTrue(result.hasFailures());
+        assertEquals(Set.of(2, 3), result.getFailures().keySet());
+        assertSame(result.getFailures().get(2), result.getFailures().get(3));
+        assertEquals(List.of(projects.get(0), projects.get(1), projects.get(4)), result.getInserted());
+
+        for (int i : new int[] { 2, 3 }) {
+            Project failed = projects.get(i);
+            assertNull(failed.getProjectId());
+            assertNull(failed.getMaterials().get(0).getMaterialId());
+            assertNull(failed.getSteps().get(0).getStepId());
+            assertEquals(0, countByName(failed.getProjectName()));
+        }
+
+        for (Project inserted : result.getInserted()) {
+            assertNotNull(inserted.getProjectId());
+            assertFalse(inserted.isModified());
+
+            Project stored = projectDao.fetchProjectById(inserted.getProjectId()).orElseThrow();
+            assertEquals(inserted.getMaterials().get(0).getMaterialId(), stored.getMaterials().get(0).getMaterialId());
+            assertEquals(inserted.getSteps().get(0).getStepId(), stored.getSteps().get(0).getStepId());
+            assertEquals(Integer.valueOf(1), stored.getCategories().get(0).getCategoryId());
+        }
+    }
+
+    @Test
+    public void allBatchesSucceed() {
+        List<Project> projects = List.of(project("All inserted 0", 1), project("All inserted 1", 2),
+                project("All inserted 2", 1));
+
+        BatchInsertResult result = projectDao.insertProjects(projects, 2);
+
+        assertFalse(result.hasFailures());
+        assertEquals(projects, result.getInserted());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyBatchIsRejected() {
+        projectDao.insertProjects(List.of(project("Empty batch", 1)), 0);
+    }
+
+    private static Project project(String name, int categoryId) {
+        Project project = new Project();
+        project.setProjectName(name);
+
+        Material material = new Material();
+        material.setMaterialName("Material of " + name);
+        material.setNumRequired(1);
+        material.setCost(new BigDecimal("3.25"));
+        project.getMaterials().add(material);
+
+        Step step = new Step();
+        step.setStepText("Step of " + name);
+        project.getSteps().add(step);
+
+        Category category = new Category();
+        category.setCategoryId(categoryId);
+        project.getCategories().add(category);
+
+        return project;
+    }
+
+    private static int countByName(String projectName) throws SQLException {
+        String sql = "SELECT COUNT(*) FROM project WHERE project_name = ?";
+
+        try (Connection conn = DbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, projectName);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
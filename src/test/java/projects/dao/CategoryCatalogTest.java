@@ -0,0 +1,123 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Category;
+import projects.entity.Project;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that {@link CategoryCatalog} is loaded again when a lookup asks for a category it does not
+ * have, and only then. Categories are inserted with SQL, bypassing the DAO, as another application
+ * instance would.
+ *
+ * @author Promineo
+ *
+ */
+public class CategoryCatalogTest {
+    private final CategoryCatalog catalog = new CategoryCatalog();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void missingIdReloadsCatalog() throws SQLException {
+        try (Connection conn = DbConnection.getConnection()) {
+            Map<Integer, Category> loaded = catalog.categories(conn, List.of(1));
+            assertSame(loaded, catalog.categories(conn, List.of(1, 2)));
+
+            int categoryId = insertCategory(conn, "Added elsewhere");
+            List<Category> resolved = catalog.resolve(conn, List.of(2, categoryId));
+
+            assertEquals(2, resolved.size());
+            assertEquals(Integer.valueOf(categoryId), resolved.get(1).getCategoryId());
+            assertEquals("Added elsewhere", resolved.get(1).getCategoryName());
+            assertNotSame(loaded, catalog.categories(conn, List.of(categoryId)));
+        }
+    }
+
+    @Test
+    public void unknownIdIsSkippedAfterReload() throws SQLException {
+        try (Connection conn = DbConnection.getConnection()) {
+            Map<Integer, Category> loaded = catalog.categories(conn, List.of(1));
+            List<Category> resolved = catalog.resolve(conn, List.of(1, 999_999));
+
+            assertEquals(1, resolved.size());
+            assertEquals(Integer.valueOf(1), resolved.get(0).getCategoryId());
+            assertNotSame(loaded, catalog.categories(conn, List.of(1)));
+        }
+    }
+
+    @Test
+    public void resolvedCategoriesAreCopies() throws SQLException {
+        try (Connection conn = DbConnection.getConnection()) {
+            catalog.resolve(conn, List.of(1)).get(0).setCategoryName("Changed by a caller");
+
+            assertEquals("Doors and Windows", catalog.resolve(conn, List.of(1)).get(0).getCategoryName());
+        }
+    }
+
+    @Test
+    public void refreshLoadsCatalogOnNextLookup() throws SQLException {
+        try (Connection conn = DbConnection.getConnection()) {
+            Map<Integer, Category> loaded = catalog.categories(conn, List.of(1));
+            catalog.refresh();
+
+            assertNotSame(loaded, catalog.categories(conn, List.of(1)));
+        }
+    }
+
+    @Test
+    public void projectReadSeesCategoryAddedElsewhere() throws SQLException {
+        ProjectDao projectDao = new ProjectDao();
+        Project project = new Project();
+        project.setProjectName("New category");
+        Integer projectId = projectDao.insertProject(project).getProjectId();
+
+        /* Make sure the DAO's catalog is loaded before the category is added. */
+        projectDao.fetchAllCategories();
+
+        /* Linked with SQL too, because linkCategories would load the catalog itself. */
+        try (Connection conn = DbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(
+                     "INSERT INTO project_category (project_id, category_id) VALUES (?, ?)")) {
+            stmt.setInt(1, projectId);
+            stmt.setInt(2, insertCategory(conn, "Linked elsewhere"));
+            stmt.executeUpdate();
+        }
+
+        for (FetchStrategy strategy : FetchStrategy.values()) {
+            List<Category> categories = projectDao.fetchProjectById(projectId, strategy).orElseThrow().getCategories();
+
+            assertEquals(strategy.name(), 1, categories.size());
+            assertEquals(strategy.name(), "Linked elsewhere", categories.get(0).getCategoryName());
+        }
+    }
+
+    private static int insertCategory(Connection conn, String name) throws SQLException {
+        String sql = "INSERT INTO category (category_name) VALUES (?)";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
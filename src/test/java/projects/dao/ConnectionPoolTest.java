@@ -0,0 +1,169 @@
+package projects.dao;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.exception.DbException;
+import projects.metrics.ConnectionEvents;
+import projects.metrics.Instrumentation;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks {@link ConnectionPool} against the embedded database, using pools of its own rather than
+ * the one behind {@link DbConnection}.
+ *
+ * @author Promineo
+ *
+ */
+public class ConnectionPoolTest {
+    private final DaoBase dao = new DaoBase() {
+    };
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @After
+    public void dropConnectionEvents() {
+        Instrumentation.install(ConnectionEvents.NOOP);
+    }
+
+    @Test
+    public void readOnlyTransactionLeftOpenIsRolledBack() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1_000, 0)) {
+            try (Connection conn = pool.borrow(true)) {
+                dao.startReadOnlyTransaction(conn);
+            }
+
+            try (Connection conn = pool.borrow(true)) {
+                assertEquals(0, inTransaction(conn));
+            }
+        }
+    }
+
+    @Test
+    public void endedReadOnlyTransactionLeavesNoTransactionOpen() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1_000, 0)) {
+            try (Connection conn = pool.borrow(true)) {
+                dao.startReadOnlyTransaction(conn);
+                assertEquals(1, inTransaction(conn));
+                dao.endReadOnlyTransaction(conn);
+            }
+
+            try (Connection conn = pool.borrow(true)) {
+                assertEquals(0, inTransaction(conn));
+            }
+        }
+    }
+
+    @Test
+    public void borrowTimesOutWhenPoolIsExhausted() throws SQLException {
+        try (ConnectionPool pool = pool(1, 200, 0); Connection held = pool.borrow()) {
+            long start = System.nanoTime();
+
+            try {
+                pool.borrow().close();
+                fail("The only connection is held");
+            } catch (DbException e) {
+                assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+            }
+
+            assertFalse(held.isClosed());
+        }
+    }
+
+    @Test
+    public void connectionReturnedWhileWaitingIsBorrowed() throws Exception {
+        try (ConnectionPool pool = pool(1, 5_000, 0)) {
+            Connection held = pool.borrow();
+            Thread returner = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                    held.close();
+                } catch (InterruptedException | SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            returner.start();
+
+            try (Connection conn = pool.borrow()) {
+                assertTrue(conn.isValid(1));
+            }
+
+            returner.join();
+        }
+    }
+
+    @Test
+    public void leakIsReportedOnceWithBorrowSite() throws Exception {
+        List<Throwable> borrowSites = new CopyOnWriteArrayList<>();
+        Instrumentation.install(new ConnectionEvents() {
+            @Override
+            public void connectionLeaked(long heldMillis, Throwable borrowSite) {
+                assertTrue(heldMillis > 50);
+                borrowSites.add(borrowSite);
+            }
+
+            @Override
+            public void connectionOpenFailed(SQLException cause) {
+            }
+
+            @Override
+            public void replicaDown(String replica, SQLException cause) {
+            }
+
+            @Override
+            public void replicaUp(String replica) {
+            }
+
+            @Override
+            public void configurationReloaded(boolean newPools) {
+            }
+
+            @Override
+            public void configurationReloadFailed(RuntimeException cause) {
+            }
+        });
+
+        try (ConnectionPool pool = pool(1, 1_000, 50)) {
+            Connection leaked = pool.borrow();
+            Thread.sleep(100);
+            pool.housekeep();
+            pool.housekeep();
+            leaked.close();
+
+            assertEquals(1, borrowSites.size());
+            assertEquals(1, pool.stats().getLeaksReported());
+            assertTrue(Arrays.stream(borrowSites.get(0).getStackTrace())
+                    .anyMatch(frame -> frame.getMethodName().equals("leakIsReportedOnceWithBorrowSite")));
+        }
+    }
+
+    /* A pool of the given size with no idle connections kept and a statement cache of eight. */
+    static ConnectionPool pool(int maxSize, long borrowTimeoutMillis, long leakThresholdMillis) {
+        DbConfig config = DbConfig.load();
+        return new ConnectionPool(config.jdbcUrl(config.host, config.port), config.user, config.password, 0,
+                maxSize, borrowTimeoutMillis, 60_000, leakThresholdMillis, 8);
+    }
+
+    private static int inTransaction(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT @@in_transaction")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package projects.dao;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * Starts an embedded MariaDB server for the DAO tests and benchmarks and points {@code DbConnection}
+ * at it. The server listens on a free port, is loaded from schema.sql and is stopped when the JVM
+ * exits, so every test run, and every JMH fork, starts from an empty database. Tests that need a
+ * clean slate create their own projects rather than relying on the tables being empty.
+ *
+ * <p>The benchmarks module gets this class and schema.sql from the test jar, so there is one copy
+ * of each.
+ *
+ * @author Promineo
+ *
+ */
+public final class EmbeddedDatabase {
+    private static final String SCHEMA = "projects";
+
+    private static DB db;
+    private static DB replica;
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Starts the server if it is not already running. This must be called before the first use of
+     * {@code DbConnection}, which reads its settings when the connection pool is created.
+     */
+    public static synchronized void start() {
+        if (db != null) {
+            return;
+        }
+
+        db = launch();
+
+        System.setProperty("projects.db.port", String.valueOf(db.getConfiguration().getPort()));
+        System.setProperty("projects.db.schema", SCHEMA);
+        System.setProperty("projects.db.user", "root");
+        System.setProperty("projects.db.password", "");
+        /* schema.sql includes the project version column. */
+        System.setProperty("projects.db.optimisticLocking", "true");
+        /* So that fetches and benchmarks using FetchStrategy.GRAPH make a single round trip. */
+        System.setProperty("projects.db.allowMultiQueries", "true");
+    }
+
+    /**
+     * Starts a second server with the same schema, if it is not already running. Nothing is
+     * replicated to it, so when it is configured as a read replica, a read that finds a row written
+     * through the DAO must have gone to the primary.
+     *
+     * @return The server's address, as host:port for projects.db.replicas.
+     */
+    public static synchronized String startReplica() {
+        if (replica == null) {
+            replica = launch();
+        }
+
+        return "localhost:" + replica.getConfiguration().getPort();
+    }
+
+    private static DB launch() {
+        DB server;
+
+        try {
+            DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+            config.setPort(0);
+
+            server = DB.newEmbeddedDB(config.build());
+            server.start();
+            server.createDB(SCHEMA);
+            server.source("schema.sql", "root", "", SCHEMA);
+        } catch (ManagedProcessException e) {
+            throw new IllegalStateException("Unable to start the embedded database", e);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.stop();
+            } catch (ManagedProcessException e) {
+                System.err.println("Unable to stop the embedded database: " + e.getMessage());
+            }
+        }, "embedded-database-shutdown"));
+
+        return server;
+    }
+}
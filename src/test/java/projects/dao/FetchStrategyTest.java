@@ -0,0 +1,122 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Category;
+import projects.entity.Material;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that every {@link FetchStrategy} reads the same project graph, and that GRAPH still works
+ * when projects.db.allowMultiQueries is off and the pooled connections refuse multi-statement
+ * requests.
+ *
+ * @author Promineo
+ *
+ */
+public class FetchStrategyTest {
+    private static final String ALLOW_MULTI_QUERIES = "projects.db.allowMultiQueries";
+
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void everyStrategyReadsTheSameGraph() {
+        Integer projectId = newProject("Every strategy");
+
+        for (FetchStrategy strategy : FetchStrategy.values()) {
+            assertGraph(strategy, projectDao.fetchProjectById(projectId, strategy).orElseThrow());
+        }
+    }
+
+    @Test
+    public void graphFetchesSequentiallyWithoutMultiQueries() throws SQLException {
+        Integer projectId = newProject("Single statements");
+        System.setProperty(ALLOW_MULTI_QUERIES, "false");
+
+        try {
+            DbConnection.reload();
+
+            try (Connection conn = DbConnection.getConnection(); Statement stmt = conn.createStatement()) {
+                stmt.execute("SELECT 1; SELECT 2");
+                fail("Multi-statement requests are allowed");
+            } catch (SQLException e) {
+                /* Expected: the connection sent the two statements as one and the server refused it. */
+            }
+
+            assertGraph(FetchStrategy.GRAPH, projectDao.fetchProjectById(projectId).orElseThrow());
+        } finally {
+            System.setProperty(ALLOW_MULTI_QUERIES, "true");
+            DbConnection.reload();
+        }
+    }
+
+    private Integer newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        Integer projectId = projectDao.insertProject(project).getProjectId();
+
+        List<Material> materials = new ArrayList<>();
+
+        for (int i = 1; i <= 2; i++) {
+            Material material = new Material();
+            material.setMaterialName("Material " + i);
+            material.setNumRequired(i);
+            material.setCost(new BigDecimal("2.50"));
+            materials.add(material);
+        }
+
+        List<Step> steps = new ArrayList<>();
+
+        for (int i = 1; i <= 3; i++) {
+            Step step = new Step();
+            step.setStepText("Step " + i);
+            steps.add(step);
+        }
+
+        projectDao.addMaterials(projectId, materials);
+        projectDao.addSteps(projectId, steps);
+        projectDao.linkCategories(List.of(projectId), List.of(1, 2));
+
+        return projectId;
+    }
+
+    private static void assertGraph(FetchStrategy strategy, Project project) {
+        String message = strategy.name();
+
+        assertEquals(message, 2, project.getMaterials().size());
+        assertEquals(message, "Material 2", project.getMaterials().get(1).getMaterialName());
+
+        List<String> stepTexts = new ArrayList<>();
+
+        for (Step step : project.getSteps()) {
+            stepTexts.add(step.getStepText());
+        }
+
+        assertEquals(message, List.of("Step 1", "Step 2", "Step 3"), stepTexts);
+
+        List<Integer> categoryIds = new ArrayList<>();
+
+        for (Category category : project.getCategories()) {
+            categoryIds.add(category.getCategoryId());
+        }
+
+        categoryIds.sort(null);
+        assertEquals(message, List.of(1, 2), categoryIds);
+    }
+}
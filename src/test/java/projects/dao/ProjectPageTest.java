@@ -0,0 +1,108 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the keyset pagination of {@link ProjectDao#fetchProjectsPage(ProjectCursor, int)}: that
+ * projects sharing a name are neither repeated nor skipped when they straddle a page boundary, and
+ * that a project inserted before the cursor does not shift the following pages. Other tests share
+ * the database, so each test names its projects with its own prefix and starts from a cursor just
+ * before it.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectPageTest {
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void duplicateNamesAcrossPagesAreReadOnce() {
+        String prefix = "Keyset duplicates ";
+        List<Integer> expected = insert(prefix, "A", "B", "B", "B", "C");
+
+        for (int pageSize = 1; pageSize <= 6; pageSize++) {
+            assertEquals("Page size " + pageSize, expected, readAll(prefix, pageSize));
+        }
+    }
+
+    @Test
+    public void insertBeforeCursorDoesNotShiftLaterPages() {
+        String prefix = "Keyset insert ";
+        List<Integer> expected = insert(prefix, "A", "B", "B", "C");
+
+        ProjectPage first = projectDao.fetchProjectsPage(new ProjectCursor(prefix, 0), 2);
+        assertEquals(expected.subList(0, 2), ids(first.getProjects()));
+        assertTrue(first.hasNext());
+
+        insert(prefix, "AA");
+
+        List<Integer> rest = new ArrayList<>();
+        readFrom(first.getNextCursor(), prefix, 2, rest);
+
+        assertEquals(expected.subList(2, 4), rest);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPageIsRejected() {
+        projectDao.fetchProjectsPage(null, 0);
+    }
+
+    private List<Integer> insert(String prefix, String... names) {
+        List<Integer> projectIds = new ArrayList<>();
+
+        for (String name : names) {
+            Project project = new Project();
+            project.setProjectName(prefix + name);
+            projectIds.add(projectDao.insertProject(project).getProjectId());
+        }
+
+        return projectIds;
+    }
+
+    private List<Integer> readAll(String prefix, int pageSize) {
+        List<Integer> projectIds = new ArrayList<>();
+        readFrom(new ProjectCursor(prefix, 0), prefix, pageSize, projectIds);
+        return projectIds;
+    }
+
+    /* Reads pages until one holds a project without the prefix, or there are no more. */
+    private void readFrom(ProjectCursor cursor, String prefix, int pageSize, List<Integer> projectIds) {
+        while (cursor != null) {
+            ProjectPage page = projectDao.fetchProjectsPage(cursor, pageSize);
+            assertTrue(page.getProjects().size() <= pageSize);
+
+            for (Project project : page.getProjects()) {
+                if (!project.getProjectName().startsWith(prefix)) {
+                    return;
+                }
+
+                projectIds.add(project.getProjectId());
+            }
+
+            cursor = page.getNextCursor();
+        }
+    }
+
+    private static List<Integer> ids(List<Project> projects) {
+        List<Integer> projectIds = new ArrayList<>();
+
+        for (Project project : projects) {
+            projectIds.add(project.getProjectId());
+        }
+
+        return projectIds;
+    }
+}
@@ -0,0 +1,136 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.dao.ProjectSnapshot.CategoryCost;
+import projects.entity.Material;
+import projects.entity.Project;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that {@link ProjectDao#loadSnapshot()} reads back what was written: every row of the three
+ * tables, each child under its own project, and categories added since the DAO's catalog was
+ * loaded. Other tests share the database, so the snapshot is checked against the row counts and
+ * against the projects this test creates.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectSnapshotLoadTest {
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void snapshotReadsBackProjectsMaterialsAndLinks() throws SQLException {
+        Integer categorized = newProject("Snapshot categorized", "Hinges", "Screws");
+        Integer uncategorized = newProject("Snapshot uncategorized", "Lumber");
+        Integer empty = projectDao.insertProject(project("Snapshot empty")).getProjectId();
+
+        /* Added after the DAO's catalog was loaded, and linked only to this test's project. */
+        projectDao.fetchAllCategories();
+        int categoryId = insertCategory("Snapshot category");
+        linkCategory(categorized, categoryId);
+        projectDao.linkCategories(List.of(categorized), List.of(1));
+
+        ProjectSnapshot snapshot = projectDao.loadSnapshot();
+
+        assertEquals(countRows("project"), snapshot.getProjectCount());
+        assertEquals(countRows("material"), snapshot.getMaterialCount());
+        assertEquals(countRows("project_category"), snapshot.getCategoryLinkCount());
+
+        assertEquals("Snapshot categorized", snapshot.getProjectName(categorized));
+        assertEquals(List.of("Hinges", "Screws"), snapshot.getMaterialNames(categorized));
+        assertEquals(List.of("Lumber"), snapshot.getMaterialNames(uncategorized));
+        assertEquals(List.of(), snapshot.getMaterialNames(empty));
+        assertNull(snapshot.getProjectName(-1));
+
+        /* Each material costs 1.25 and two are required. */
+        assertEquals(new BigDecimal("5.00"), snapshot.materialCostByProject().get(categorized));
+        assertEquals(new BigDecimal("2.50"), snapshot.materialCostByProject().get(uncategorized));
+        assertEquals(new BigDecimal("0.00"), snapshot.materialCostByProject().get(empty));
+
+        CategoryCost added = null;
+
+        for (CategoryCost cost : snapshot.materialCostByCategory()) {
+            if (cost.getCategoryId() == categoryId) {
+                added = cost;
+            }
+        }
+
+        assertNotNull(added);
+        assertEquals("Snapshot category", added.getCategoryName());
+        assertEquals(1, added.getProjectCount());
+        assertEquals(2, added.getMaterialCount());
+        assertEquals(new BigDecimal("5.00"), added.getCost());
+    }
+
+    private Integer newProject(String name, String... materialNames) {
+        Integer projectId = projectDao.insertProject(project(name)).getProjectId();
+
+        for (String materialName : materialNames) {
+            Material material = new Material();
+            material.setMaterialName(materialName);
+            material.setNumRequired(2);
+            material.setCost(new BigDecimal("1.25"));
+            projectDao.addMaterials(projectId, List.of(material));
+        }
+
+        return projectId;
+    }
+
+    private static Project project(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        project.setEstimatedHours(new BigDecimal("3.50"));
+        project.setDifficulty(2);
+        return project;
+    }
+
+    private static int insertCategory(String name) throws SQLException {
+        String sql = "INSERT INTO category (category_name) VALUES (?)";
+
+        try (Connection conn = DbConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private static void linkCategory(Integer projectId, int categoryId) throws SQLException {
+        String sql = "INSERT INTO project_category (project_id, category_id) VALUES (?, ?)";
+
+        try (Connection conn = DbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, projectId);
+            stmt.setInt(2, categoryId);
+            stmt.executeUpdate();
+        }
+    }
+
+    private static int countRows(String table) throws SQLException {
+        try (Connection conn = DbConnection.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
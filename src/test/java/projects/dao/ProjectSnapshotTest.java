@@ -0,0 +1,115 @@
+package projects.dao;
+
+import org.junit.Test;
+import projects.dao.ProjectSnapshot.CategoryCost;
+import projects.dao.ProjectSnapshot.DifficultyHours;
+import projects.entity.CompactProject;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the difficulty and material cost totals of {@link ProjectSnapshot}, built in memory without
+ * a database.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectSnapshotTest {
+    private static final long NULL_DECIMAL = CompactProject.NULL_DECIMAL;
+    private static final int NULL_INT = CompactProject.NULL_INT;
+
+    @Test
+    public void everyDifficultyIsTotalledInAscendingOrderWithNoneLast() {
+        ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder(Map.of());
+        builder.addProject(1, "Large", 100, 200, Integer.MAX_VALUE);
+        builder.addProject(2, "Zero", 150, NULL_DECIMAL, 0);
+        builder.addProject(3, "Negative", 250, 300, -2);
+        builder.addProject(4, "None", 400, 500, NULL_INT);
+        builder.addProject(5, "Zero again", NULL_DECIMAL, 700, 0);
+
+        List<DifficultyHours> summaries = builder.build().hoursByDifficulty();
+
+        assertEquals(4, summaries.size());
+        assertSummary(summaries.get(0), -2, 1, "2.50", 1, "3.00", 1);
+        assertSummary(summaries.get(1), 0, 2, "1.50", 1, "7.00", 1);
+        assertSummary(summaries.get(2), Integer.MAX_VALUE, 1, "1.00", 1, "2.00", 1);
+        assertSummary(summaries.get(3), null, 1, "4.00", 1, "5.00", 1);
+    }
+
+    @Test
+    public void emptySnapshotHasNoDifficulties() {
+        assertEquals(List.of(), new ProjectSnapshot.Builder(Map.of()).build().hoursByDifficulty());
+    }
+
+    @Test
+    public void materialCostIsTotalledPerCategoryLeavingOutUncategorizedProjects() {
+        /* The builder takes the categories in ID order, which Map.of does not keep. */
+        ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder(
+                new TreeMap<>(Map.of(1, "Doors and Windows", 2, "Repairs", 3, "Gardening")));
+        builder.addProject(1, "Two categories", NULL_DECIMAL, NULL_DECIMAL, NULL_INT);
+        builder.addProject(2, "No categories", NULL_DECIMAL, NULL_DECIMAL, NULL_INT);
+        builder.addProject(3, "One category", NULL_DECIMAL, NULL_DECIMAL, NULL_INT);
+        builder.addProject(4, "No materials", NULL_DECIMAL, NULL_DECIMAL, NULL_INT);
+
+        builder.addMaterial(1, 10, "Hinges", 2, 250);
+        builder.addMaterial(1, 11, "Screws", 3, NULL_DECIMAL);
+        builder.addMaterial(1, 12, "Glue", NULL_INT, 100);
+        builder.addMaterial(2, 20, "Lumber", 1, 10_000);
+        builder.addMaterial(3, 30, "Paint", 1, 300);
+        builder.addMaterial(9, 90, "Not in the snapshot", 1, 500);
+
+        builder.addCategoryLink(1, 1);
+        builder.addCategoryLink(1, 2);
+        builder.addCategoryLink(3, 1);
+        builder.addCategoryLink(3, 99);
+        builder.addCategoryLink(4, 2);
+        builder.addCategoryLink(9, 1);
+
+        ProjectSnapshot snapshot = builder.build();
+        List<CategoryCost> costs = snapshot.materialCostByCategory();
+
+        assertEquals(2, costs.size());
+        assertCost(costs.get(0), 1, "Doors and Windows", 2, 3, "9.00");
+        assertCost(costs.get(1), 2, "Repairs", 2, 2, "6.00");
+
+        assertEquals(Map.of(1, new BigDecimal("6.00"), 2, new BigDecimal("100.00"), 3, new BigDecimal("3.00"),
+                4, new BigDecimal("0.00")), snapshot.materialCostByProject());
+        assertEquals(5, snapshot.getMaterialCount());
+        assertEquals(4, snapshot.getCategoryLinkCount());
+        assertEquals(List.of("Hinges", "Screws", "Glue"), snapshot.getMaterialNames(1));
+        assertEquals(List.of(), snapshot.getMaterialNames(4));
+    }
+
+    @Test
+    public void snapshotWithoutCategoryLinksHasNoCategoryCosts() {
+        ProjectSnapshot.Builder builder = new ProjectSnapshot.Builder(Map.of(1, "Doors and Windows"));
+        builder.addProject(1, "Uncategorized", NULL_DECIMAL, NULL_DECIMAL, NULL_INT);
+        builder.addMaterial(1, 10, "Lumber", 4, 1_000);
+
+        assertEquals(List.of(), builder.build().materialCostByCategory());
+    }
+
+    private static void assertCost(CategoryCost cost, int categoryId, String categoryName, long projects,
+                                   long materials, String total) {
+        assertEquals(categoryId, cost.getCategoryId());
+        assertEquals(categoryName, cost.getCategoryName());
+        assertEquals(projects, cost.getProjectCount());
+        assertEquals(materials, cost.getMaterialCount());
+        assertEquals(new BigDecimal(total), cost.getCost());
+    }
+
+    private static void assertSummary(DifficultyHours summary, Integer difficulty, long projects, String estimated,
+                                      long estimatedCount, String actual, long actualCount) {
+        assertEquals(difficulty, summary.getDifficulty());
+        assertEquals(projects, summary.getProjectCount());
+        assertEquals(new BigDecimal(estimated), summary.getEstimatedHours());
+        assertEquals(estimatedCount, summary.getEstimatedCount());
+        assertEquals(new BigDecimal(actual), summary.getActualHours());
+        assertEquals(actualCount, summary.getActualCount());
+    }
+}
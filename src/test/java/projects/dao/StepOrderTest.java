@@ -0,0 +1,205 @@
+package projects.dao;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the sparse step numbering of {@link ProjectDao}: that concurrent inserts and moves leave
+ * every step with its own step order, and that a project is renumbered when there is no room
+ * between two neighbours.
+ *
+ * @author Promineo
+ *
+ */
+public class StepOrderTest {
+    private static final int GAP = 1024;
+
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void concurrentWritersKeepStepOrdersUniqueAndOrdered() throws Exception {
+        Integer projectId = newProject("Concurrent steps");
+        projectDao.addSteps(projectId, steps(10));
+
+        int writers = 8;
+        int writesPerWriter = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        List<Future<Integer>> added = new ArrayList<>();
+
+        try {
+            for (int writer = 0; writer < writers; writer++) {
+                added.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int stepsAdded = 0;
+
+                    for (int i = 0; i < writesPerWriter; i++) {
+                        List<Integer> stepIds = fetchStepIds(projectId);
+                        Integer afterStepId = random.nextInt(5) == 0 ? null
+                                : stepIds.get(random.nextInt(stepIds.size()));
+
+                        switch (random.nextInt(3)) {
+                            case 0 -> {
+                                projectDao.insertStep(projectId, step("Inserted"), afterStepId);
+                                stepsAdded++;
+                            }
+                            case 1 -> {
+                                Integer stepId = stepIds.get(random.nextInt(stepIds.size()));
+
+                                if (!stepId.equals(afterStepId)) {
+                                    assertTrue(projectDao.moveStep(projectId, stepId, afterStepId));
+                                }
+                            }
+                            default -> {
+                                projectDao.addSteps(projectId, steps(2));
+                                stepsAdded += 2;
+                            }
+                        }
+                    }
+
+                    return stepsAdded;
+                }));
+            }
+
+            int expectedSteps = 10;
+
+            for (Future<Integer> writer : added) {
+                expectedSteps += writer.get(2, TimeUnit.MINUTES);
+            }
+
+            List<Integer> orders = fetchStepOrders(projectId);
+            assertEquals(expectedSteps, orders.size());
+            assertStrictlyIncreasing(orders);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void insertBetweenAdjacentStepsRebalances() throws SQLException {
+        Integer projectId = newProject("Adjacent steps");
+        List<Step> steps = projectDao.addSteps(projectId, steps(2));
+        setStepOrder(steps.get(0), 1);
+        setStepOrder(steps.get(1), 2);
+
+        Step inserted = projectDao.insertStep(projectId, step("Between"), steps.get(0).getStepId());
+
+        assertEquals(List.of(steps.get(0).getStepId(), inserted.getStepId(), steps.get(1).getStepId()),
+                fetchStepIds(projectId));
+        assertEquals(List.of(GAP, GAP + GAP / 2, 2 * GAP), fetchStepOrders(projectId));
+    }
+
+    @Test
+    public void moveToFrontOfStepAtOrderOneRebalances() throws SQLException {
+        Integer projectId = newProject("Front step");
+        List<Step> steps = projectDao.addSteps(projectId, steps(3));
+        setStepOrder(steps.get(0), 1);
+
+        assertTrue(projectDao.moveStep(projectId, steps.get(2).getStepId(), null));
+
+        assertEquals(List.of(steps.get(2).getStepId(), steps.get(0).getStepId(), steps.get(1).getStepId()),
+                fetchStepIds(projectId));
+        assertEquals(0, fetchStepOrders(projectId).get(1) % GAP);
+    }
+
+    @Test
+    public void insertAfterDuplicatedOrderRebalances() throws SQLException {
+        Integer projectId = newProject("Duplicated steps");
+        List<Step> steps = projectDao.addSteps(projectId, steps(2));
+        setStepOrder(steps.get(0), 3);
+        setStepOrder(steps.get(1), 3);
+
+        Step inserted = projectDao.insertStep(projectId, step("Between"), steps.get(0).getStepId());
+
+        assertEquals(List.of(steps.get(0).getStepId(), inserted.getStepId(), steps.get(1).getStepId()),
+                fetchStepIds(projectId));
+        assertStrictlyIncreasing(fetchStepOrders(projectId));
+    }
+
+    private Integer newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        return projectDao.insertProject(project).getProjectId();
+    }
+
+    private static List<Step> steps(int count) {
+        List<Step> steps = new ArrayList<>(count);
+
+        for (int i = 1; i <= count; i++) {
+            steps.add(step("Step " + i));
+        }
+
+        return steps;
+    }
+
+    private static Step step(String text) {
+        Step step = new Step();
+        step.setStepText(text);
+        return step;
+    }
+
+    private static void assertStrictlyIncreasing(List<Integer> orders) {
+        for (int i = 1; i < orders.size(); i++) {
+            assertTrue("Step orders " + orders.get(i - 1) + " and " + orders.get(i) + " at position " + i,
+                    orders.get(i - 1) < orders.get(i));
+        }
+    }
+
+    private static void setStepOrder(Step step, int stepOrder) throws SQLException {
+        String sql = "UPDATE step SET step_order = ? WHERE step_id = ?";
+
+        try (Connection conn = DbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, stepOrder);
+            stmt.setInt(2, step.getStepId());
+            stmt.executeUpdate();
+        }
+    }
+
+    private static List<Integer> fetchStepIds(Integer projectId) throws SQLException {
+        return fetchStepColumn(projectId, "step_id");
+    }
+
+    private static List<Integer> fetchStepOrders(Integer projectId) throws SQLException {
+        return fetchStepColumn(projectId, "step_order");
+    }
+
+    private static List<Integer> fetchStepColumn(Integer projectId, String column) throws SQLException {
+        String sql = "SELECT " + column + " FROM step WHERE project_id = ? ORDER BY step_order, step_id";
+
+        try (Connection conn = DbConnection.getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, projectId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                List<Integer> values = new ArrayList<>();
+
+                while (rs.next()) {
+                    values.add(rs.getInt(1));
+                }
+
+                return Collections.unmodifiableList(values);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package projects.entity;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a list of {@link CompactProject} retains less heap per project than the same projects
+ * as {@link Project} entities. Both models share the category name strings, as they do when read
+ * through the category catalog, and keep every other string as read, so only the layout differs.
+ *
+ * @author Promineo
+ *
+ */
+public class CompactProjectFootprintTest {
+    private static final int PROJECTS = 1_000;
+    private static final int CHILDREN = 10;
+
+    private static final Map<Integer, String> CATEGORY_NAMES = Map.of(1, "Doors and Windows", 2, "Repairs");
+
+    @Test
+    public void compactProjectRetainsLessThanEntityGraph() {
+        List<Project> projects = new ArrayList<>(PROJECTS);
+
+        for (int projectId = 1; projectId <= PROJECTS; projectId++) {
+            projects.add(project(projectId));
+        }
+
+        List<CompactProject> compact = new ArrayList<>(PROJECTS);
+
+        for (Project project : projects) {
+            compact.add(compact(project));
+        }
+
+        long entityBytes = GraphLayout.parseInstance(projects).totalSize() / PROJECTS;
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize() / PROJECTS;
+
+        assertTrue("CompactProject " + compactBytes + " bytes/project, Project " + entityBytes + " bytes/project",
+                compactBytes < entityBytes);
+    }
+
+    private static Project project(int projectId) {
+        Project project = new Project();
+        project.setProjectId(projectId);
+        project.setProjectName("Project " + projectId);
+        project.setEstimatedHours(new BigDecimal("12.50"));
+        project.setActualHours(new BigDecimal("14.00"));
+        project.setDifficulty(3);
+        project.setNotes("Notes for project " + projectId);
+
+        for (int i = 1; i <= CHILDREN; i++) {
+            int childId = (projectId - 1) * CHILDREN + i;
+
+            Material material = new Material();
+            material.setMaterialId(childId);
+            material.setProjectId(projectId);
+            material.setMaterialName("Material " + i);
+            material.setNumRequired(i);
+            material.setCost(new BigDecimal("4.99"));
+            project.getMaterials().add(material);
+
+            Step step = new Step();
+            step.setStepId(childId);
+            step.setProjectId(projectId);
+            step.setStepText("Step " + i + " of project " + projectId);
+            step.setStepOrder(i * 1024);
+            project.getSteps().add(step);
+        }
+
+        /* The DAO hands out a Category per project, but its name is the catalog's string. */
+        for (Map.Entry<Integer, String> entry : CATEGORY_NAMES.entrySet()) {
+            Category category = new Category();
+            category.setCategoryId(entry.getKey());
+            category.setCategoryName(entry.getValue());
+            project.getCategories().add(category);
+        }
+
+        /* The DAO clears the recorded changes of every project it reads. */
+        project.clearModified();
+
+        return project;
+    }
+
+    private static CompactProject compact(Project project) {
+        CompactMaterial[] materials = new CompactMaterial[project.getMaterials().size()];
+        CompactStep[] steps = new CompactStep[project.getSteps().size()];
+        int[] categoryIds = new int[project.getCategories().size()];
+        String[] categoryNames = new String[categoryIds.length];
+
+        for (int i = 0; i < materials.length; i++) {
+            Material material = project.getMaterials().get(i);
+            materials[i] = new CompactMaterial(material.getMaterialId(), material.getMaterialName(),
+                    material.getNumRequired(), CompactProject.toHundredths(material.getCost()));
+        }
+
+        for (int i = 0; i < steps.length; i++) {
+            Step step = project.getSteps().get(i);
+            steps[i] = new CompactStep(step.getStepId(), step.getStepText(), step.getStepOrder());
+        }
+
+        for (int i = 0; i < categoryIds.length; i++) {
+            Category category = project.getCategories().get(i);
+            categoryIds[i] = category.getCategoryId();
+            categoryNames[i] = category.getCategoryName();
+        }
+
+        return new CompactProject(project.getProjectId(), project.getProjectName(),
+                CompactProject.toHundredths(project.getEstimatedHours()),
+                CompactProject.toHundredths(project.getActualHours()), project.getDifficulty(), project.getNotes(),
+                0, materials, steps, categoryIds, categoryNames);
+    }
+}
@@ -0,0 +1,60 @@
+package projects.entity;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Checks which setter calls {@link Project} records as changes.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectTest {
+    @Test
+    public void newProjectRecordsEverySetterCall() {
+        Project project = new Project();
+        project.setProjectId(1);
+        project.setNotes(null);
+        project.setActualHours(null);
+
+        assertEquals(List.of("notes", "actualHours"), List.copyOf(project.getModifiedFields()));
+    }
+
+    @Test
+    public void loadedProjectRecordsOnlyChangedValues() {
+        Project project = new Project();
+        project.setProjectName("Shelves");
+        project.setEstimatedHours(new BigDecimal("1.5"));
+        project.clearModified();
+
+        project.setProjectName("Shelves");
+        project.setEstimatedHours(new BigDecimal("1.50"));
+        assertFalse(project.isModified());
+
+        project.setNotes(null);
+        assertFalse(project.isModified());
+
+        project.setProjectName("Bookshelves");
+        assertEquals(List.of("projectName"), List.copyOf(project.getModifiedFields()));
+    }
+
+    @Test
+    public void clearedProjectRecordsLaterChanges() {
+        Project project = new Project();
+        assertEquals(List.of(), List.copyOf(project.getModifiedFields()));
+
+        project.setNotes("Draft");
+        project.clearModified();
+        assertFalse(project.isModified());
+        assertEquals(List.of(), List.copyOf(project.getModifiedFields()));
+
+        project.setNotes("Final");
+        project.setDifficulty(2);
+        assertEquals(List.of("notes", "difficulty"), List.copyOf(project.getModifiedFields()));
+    }
+}
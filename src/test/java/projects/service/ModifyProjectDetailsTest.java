@@ -0,0 +1,71 @@
+package projects.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.dao.EmbeddedDatabase;
+import projects.entity.Project;
+import projects.exception.DbException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks {@link ProjectService#modifyProjectDetails(Project)} against the embedded database. The
+ * service's cache is off, so every fetch reads the stored row.
+ *
+ * @author Promineo
+ *
+ */
+public class ModifyProjectDetailsTest {
+    private final ProjectService projectService = new ProjectService(0, Duration.ZERO);
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void settingNullOnNewProjectClearsColumns() {
+        Integer projectId = newProject("Clear columns");
+
+        Project change = new Project();
+        change.setProjectId(projectId);
+        change.setActualHours(null);
+        change.setNotes(null);
+        projectService.modifyProjectDetails(change);
+
+        Project stored = projectService.fetchProjectById(projectId);
+        assertNull(stored.getActualHours());
+        assertNull(stored.getNotes());
+        assertEquals("Clear columns", stored.getProjectName());
+        assertEquals(0, new BigDecimal("3.00").compareTo(stored.getEstimatedHours()));
+    }
+
+    @Test(expected = DbException.class)
+    public void unknownProjectIsReportedWithoutChanges() {
+        Project change = new Project();
+        change.setProjectId(Integer.MAX_VALUE);
+        projectService.modifyProjectDetails(change);
+    }
+
+    @Test(expected = DbException.class)
+    public void unknownProjectIsReportedWithChanges() {
+        Project change = new Project();
+        change.setProjectId(Integer.MAX_VALUE);
+        change.setNotes("Nobody reads this");
+        projectService.modifyProjectDetails(change);
+    }
+
+    private Integer newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        project.setEstimatedHours(new BigDecimal("3.00"));
+        project.setActualHours(new BigDecimal("4.00"));
+        project.setDifficulty(2);
+        project.setNotes("Some notes");
+        return projectService.addProject(project).getProjectId();
+    }
+}
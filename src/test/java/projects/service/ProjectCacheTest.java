@@ -0,0 +1,165 @@
+package projects.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.dao.EmbeddedDatabase;
+import projects.entity.Project;
+import projects.entity.Step;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks that {@link ProjectCache} drops a project whenever it may be out of date: on invalidation,
+ * for a load that raced an invalidation, within the replica lag window and after the time to live.
+ * The last test checks that {@link ProjectService} invalidates on its writes, against the embedded
+ * database.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectCacheTest {
+    private final AtomicLong lagWindowMillis = new AtomicLong();
+    private final ProjectCache cache = new ProjectCache(2, Duration.ofMinutes(5), lagWindowMillis::get);
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void invalidatedProjectIsDropped() {
+        Project project = project(1);
+        cache.putIfCurrent(1, project, cache.loadToken());
+        assertSame(project, cache.get(1));
+
+        cache.invalidate(1);
+
+        assertNull(cache.get(1));
+        assertCounts(1, 1, 0, 0);
+    }
+
+    @Test
+    public void loadThatRacedAnInvalidationIsNotCached() {
+        long token = cache.loadToken();
+        cache.invalidate(1);
+        cache.putIfCurrent(1, project(1), token);
+
+        assertNull(cache.get(1));
+
+        /* The next load starts after the invalidation, so it is cached. */
+        cache.putIfCurrent(1, project(1), cache.loadToken());
+        assertEquals(Integer.valueOf(1), cache.get(1).getProjectId());
+    }
+
+    @Test
+    public void invalidateAllDropsEveryProjectAndRacingLoads() {
+        cache.putIfCurrent(1, project(1), cache.loadToken());
+        long token = cache.loadToken();
+
+        cache.invalidateAll();
+        cache.putIfCurrent(2, project(2), token);
+
+        assertNull(cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    public void projectWrittenWithinLagWindowIsNotCached() throws InterruptedException {
+        lagWindowMillis.set(100);
+        cache.invalidate(1);
+        cache.putIfCurrent(1, project(1), cache.loadToken());
+        cache.putIfCurrent(2, project(2), cache.loadToken());
+
+        assertNull(cache.get(1));
+        assertEquals(Integer.valueOf(2), cache.get(2).getProjectId());
+
+        Thread.sleep(150);
+        cache.putIfCurrent(1, project(1), cache.loadToken());
+
+        assertEquals(Integer.valueOf(1), cache.get(1).getProjectId());
+    }
+
+    @Test
+    public void leastRecentlyUsedProjectIsEvicted() {
+        cache.putIfCurrent(1, project(1), cache.loadToken());
+        cache.putIfCurrent(2, project(2), cache.loadToken());
+        cache.get(1);
+        cache.putIfCurrent(3, project(3), cache.loadToken());
+
+        assertNull(cache.get(2));
+        assertEquals(Integer.valueOf(1), cache.get(1).getProjectId());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void expiredProjectIsDropped() throws InterruptedException {
+        ProjectCache shortLived = new ProjectCache(2, Duration.ofMillis(50), () -> 0);
+        shortLived.putIfCurrent(1, project(1), shortLived.loadToken());
+
+        Thread.sleep(100);
+
+        assertNull(shortLived.get(1));
+        assertEquals(1, shortLived.stats().getEvictions());
+    }
+
+    @Test
+    public void serviceWritesInvalidateTheProject() {
+        ProjectService projectService = new ProjectService(10, Duration.ofMinutes(5));
+        Project project = new Project();
+        project.setProjectName("Cached");
+        Integer projectId = projectService.addProject(project).getProjectId();
+
+        Project cached = projectService.fetchProjectById(projectId);
+        assertSame(cached, projectService.fetchProjectById(projectId));
+
+        Project change = new Project();
+        change.setProjectId(projectId);
+        change.setVersion(cached.getVersion());
+        change.setProjectName("Renamed");
+        projectService.modifyProjectDetails(change);
+
+        Project renamed = projectService.fetchProjectById(projectId);
+        assertNotSame(cached, renamed);
+        assertEquals("Renamed", renamed.getProjectName());
+
+        Step step = new Step();
+        step.setStepText("Added step");
+        projectService.addSteps(projectId, List.of(step));
+
+        assertEquals(1, projectService.fetchProjectById(projectId).getSteps().size());
+        assertEquals(1, projectService.getCacheStats().getHits());
+        assertEquals(3, projectService.getCacheStats().getMisses());
+
+        projectService.deleteProject(projectId);
+
+        try {
+            projectService.fetchProjectById(projectId);
+            fail("The deleted project was served from the cache");
+        } catch (NoSuchElementException e) {
+            /* Expected. */
+        }
+    }
+
+    private void assertCounts(long hits, long misses, long evictions, int size) {
+        CacheStats stats = cache.stats();
+        assertEquals(hits, stats.getHits());
+        assertEquals(misses, stats.getMisses());
+        assertEquals(evictions, stats.getEvictions());
+        assertEquals(size, stats.getSize());
+    }
+
+    private static Project project(Integer projectId) {
+        Project project = new Project();
+        project.setProjectId(projectId);
+        return project;
+    }
+}
@@ -0,0 +1,102 @@
+package projects.service;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.dao.EmbeddedDatabase;
+import projects.entity.Project;
+import projects.exception.ProjectConflictException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks optimistic locking with two editors updating the same project from the same version. The
+ * embedded database has the version column and turns projects.db.optimisticLocking on.
+ *
+ * @author Promineo
+ *
+ */
+public class ProjectConflictTest {
+    private final ProjectService projectService = new ProjectService(0, Duration.ZERO);
+
+    @BeforeClass
+    public static void startDatabase() {
+        EmbeddedDatabase.start();
+    }
+
+    @Test
+    public void staleUpdateReportsCurrentVersionAndKeepsChanges() {
+        Integer projectId = newProject("Stale update");
+
+        Project first = change(projectId, 0);
+        first.setNotes("First editor");
+        projectService.modifyProjectDetails(first);
+        assertEquals(Integer.valueOf(1), first.getVersion());
+
+        Project second = change(projectId, 0);
+        second.setProjectName("Second editor");
+
+        try {
+            projectService.modifyProjectDetails(second);
+            fail("The second editor's update was based on version 0");
+        } catch (ProjectConflictException e) {
+            assertEquals(projectId, e.getProjectId());
+            assertEquals(Integer.valueOf(0), e.getExpectedVersion());
+            assertEquals(Integer.valueOf(1), e.getCurrentVersion());
+        }
+
+        assertEquals(List.of("projectName"), List.copyOf(second.getModifiedFields()));
+        assertEquals("Stale update", projectService.fetchProjectById(projectId).getProjectName());
+    }
+
+    @Test
+    public void retryMergesOntoOtherEditorsChanges() {
+        Integer projectId = newProject("Merged update");
+
+        Project first = change(projectId, 0);
+        first.setNotes("First editor");
+        projectService.modifyProjectDetails(first);
+
+        Project second = change(projectId, 0);
+        second.setDifficulty(5);
+        projectService.modifyProjectDetails(second, 3);
+
+        Project stored = projectService.fetchProjectById(projectId);
+        assertEquals("First editor", stored.getNotes());
+        assertEquals(Integer.valueOf(5), stored.getDifficulty());
+        assertEquals("Merged update", stored.getProjectName());
+        assertEquals(Integer.valueOf(2), stored.getVersion());
+        assertEquals(Integer.valueOf(2), second.getVersion());
+    }
+
+    @Test(expected = ProjectConflictException.class)
+    public void retryGivesUpAfterMaxAttempts() {
+        Integer projectId = newProject("Single attempt");
+
+        Project first = change(projectId, 0);
+        first.setNotes("First editor");
+        projectService.modifyProjectDetails(first);
+
+        Project second = change(projectId, 0);
+        second.setNotes("Second editor");
+        projectService.modifyProjectDetails(second, 1);
+    }
+
+    private Integer newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        project.setNotes("Original notes");
+        project.setDifficulty(1);
+        return projectService.addProject(project).getProjectId();
+    }
+
+    private static Project change(Integer projectId, int version) {
+        Project project = new Project();
+        project.setProjectId(projectId);
+        project.setVersion(version);
+        return project;
+    }
+}
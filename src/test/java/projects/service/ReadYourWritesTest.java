@@ -0,0 +1,114 @@
+package projects.service;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import projects.dao.DbConnection;
+import projects.dao.EmbeddedDatabase;
+import projects.dao.ProjectDao;
+import projects.entity.Project;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks read replica routing and read-your-writes against two embedded servers. The second server
+ * is configured as the replica but nothing is replicated to it, so a new project can only be read
+ * back from the primary.
+ *
+ * @author Promineo
+ *
+ */
+public class ReadYourWritesTest {
+    private final ProjectDao projectDao = new ProjectDao();
+
+    @BeforeClass
+    public static void startServers() {
+        EmbeddedDatabase.start();
+        System.setProperty("projects.db.replicas", EmbeddedDatabase.startReplica());
+        System.setProperty("projects.db.readYourWritesMillis", "60000");
+        DbConnection.reload();
+    }
+
+    @AfterClass
+    public static void stopReadingReplica() {
+        System.clearProperty("projects.db.replicas");
+        System.clearProperty("projects.db.readYourWritesMillis");
+        DbConnection.reload();
+    }
+
+    @Test
+    public void writerReadsItsOwnInsert() {
+        Integer projectId = newProject("Own insert");
+
+        assertTrue(projectDao.fetchProjectById(projectId).isPresent());
+    }
+
+    @Test
+    public void otherThreadsReadTheReplica() throws Exception {
+        Integer projectId = newProject("Replica read");
+
+        assertNull(onNewThread(DbConnection::getLastWrite));
+        assertFalse(onNewThread(() -> projectDao.fetchProjectById(projectId)).isPresent());
+    }
+
+    @Test
+    public void inheritedWriteIsReadOnAnotherThread() throws Exception {
+        Integer projectId = newProject("Handed over");
+        Long lastWrite = DbConnection.getLastWrite();
+
+        assertTrue(onNewThread(() -> {
+            DbConnection.inheritLastWrite(lastWrite);
+            return projectDao.fetchProjectById(projectId);
+        }).isPresent());
+    }
+
+    @Test
+    public void asyncServiceReadsItsOwnWrites() throws Exception {
+        /* On a new thread, so the write this test thread made in other tests does not help. */
+        Project fetched = onNewThread(() -> {
+            try (AsyncProjectService async = new AsyncProjectService(new ProjectService(0, Duration.ZERO), 4)) {
+                Project project = new Project();
+                project.setProjectName("Async insert");
+
+                Integer projectId = async.addProject(project).join().getProjectId();
+                return async.fetchProjectById(projectId).join();
+            }
+        });
+
+        assertEquals("Async insert", fetched.getProjectName());
+    }
+
+    @Test
+    public void asyncServiceReadsCallerWrites() throws Exception {
+        Integer projectId = newProject("Caller insert");
+
+        try (AsyncProjectService async = new AsyncProjectService(new ProjectService(0, Duration.ZERO), 4)) {
+            assertEquals(projectId, async.fetchProjectById(projectId).join().getProjectId());
+        }
+    }
+
+    private Integer newProject(String name) {
+        Project project = new Project();
+        project.setProjectName(name);
+        return projectDao.insertProject(project).getProjectId();
+    }
+
+    private static <T> T onNewThread(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            return executor.submit(task).get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}